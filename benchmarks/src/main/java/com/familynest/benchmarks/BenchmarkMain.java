@@ -0,0 +1,38 @@
+package com.familynest.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Entry point of the benchmarks jar. Runs JMH with the given arguments and, unless the caller chose a
+ * result format, also writes the results as JSON to {@code results/jmh-<timestamp>.json}, so every
+ * run leaves a file that can be compared with earlier releases.
+ */
+public final class BenchmarkMain {
+
+    // Options that only print information and run nothing
+    private static final Set<String> INFO_OPTIONS = Set.of("-h", "-l", "-lp", "-lrf", "-lprof");
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(List.of(args));
+        if (!arguments.contains("-rf") && arguments.stream().noneMatch(INFO_OPTIONS::contains)) {
+            arguments.addAll(0, List.of("-rf", "json", "-rff", resultFile().toString()));
+        }
+        org.openjdk.jmh.Main.main(arguments.toArray(String[]::new));
+    }
+
+    private static Path resultFile() throws IOException {
+        Path directory = Files.createDirectories(Path.of("results"));
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        return directory.resolve("jmh-" + timestamp + ".json");
+    }
+}
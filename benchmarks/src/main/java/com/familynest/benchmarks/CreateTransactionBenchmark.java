@@ -0,0 +1,93 @@
+package com.familynest.benchmarks;
+
+import com.familynest.model.Transaction;
+import com.familynest.service.AccountService;
+import com.familynest.service.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link TransactionService#createTransaction} per second, the path behind POST /api/transactions:
+ * account lock, balance update, transaction row and outbox events.
+ * <p>
+ * The multi-threaded variants show how writes scale: with every thread on its own account they only
+ * share the repositories and the outbox; on one shared account they queue on the same lock stripe.
+ * Change the thread count with {@code -t}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CreateTransactionBenchmark {
+
+    private static final int ACCOUNTS = 64;
+    private static final BigDecimal AMOUNT = new BigDecimal("-4.50");
+
+    private InMemoryStack stack;
+    private TransactionService transactionService;
+    private long[] accountIds;
+    private final AtomicInteger nextAccount = new AtomicInteger();
+
+    // A fresh stack per iteration keeps the history, and so the heap, from growing across the run
+    @Setup(Level.Iteration)
+    public void setUp() {
+        stack = new InMemoryStack();
+        transactionService = stack.bean(TransactionService.class);
+        AccountService accountService = stack.bean(AccountService.class);
+        accountIds = new long[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountIds[i] = accountService.createAccount(1L, "Account " + i, true).getId();
+        }
+        nextAccount.set(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        stack.close();
+    }
+
+    @State(Scope.Thread)
+    public static class OwnAccount {
+        private long accountId;
+
+        @Setup(Level.Iteration)
+        public void setUp(CreateTransactionBenchmark benchmark) {
+            accountId = benchmark.accountIds[benchmark.nextAccount.getAndIncrement() % ACCOUNTS];
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Transaction singleThread(OwnAccount account) {
+        return transactionService.createTransaction(account.accountId, AMOUNT, "Groceries");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Transaction multiThreadOwnAccounts(OwnAccount account) {
+        return transactionService.createTransaction(account.accountId, AMOUNT, "Groceries");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Transaction multiThreadSharedAccount() {
+        return transactionService.createTransaction(accountIds[0], AMOUNT, "Groceries");
+    }
+}
@@ -0,0 +1,97 @@
+package com.familynest.benchmarks;
+
+import com.familynest.dto.AccountDto;
+import com.familynest.dto.FamilyAccountDto;
+import com.familynest.model.Account;
+import com.familynest.model.User;
+import com.familynest.repository.MockAccountRepository;
+import com.familynest.repository.MockUserRepository;
+import com.familynest.service.AccountService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AccountService#getAccountsByUserId} for a parent whose family grows large, next to the
+ * dashboard's {@link AccountService#getFamilyAccounts} for the same family and the lookup a single
+ * child makes. Other families are added around it so the indexes are not trivially small.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FamilyAccountsBenchmark {
+
+    private static final int OTHER_FAMILIES = 10_000;
+
+    @Param({"10", "100", "1000"})
+    public int children;
+
+    @Param({"1", "5"})
+    public int accountsPerChild;
+
+    private InMemoryStack stack;
+    private AccountService accountService;
+    private long parentId;
+    private long childId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        stack = new InMemoryStack();
+        accountService = stack.bean(AccountService.class);
+        MockUserRepository users = stack.bean(MockUserRepository.class);
+        MockAccountRepository accounts = stack.bean(MockAccountRepository.class);
+
+        for (int i = 0; i < OTHER_FAMILIES; i++) {
+            User parent = users.save(Fixtures.user("other" + i, null));
+            Account main = accounts.save(Fixtures.account(parent, null));
+            accounts.save(Fixtures.account(users.save(Fixtures.user("other" + i + "-child", parent)), main));
+        }
+
+        User parent = users.save(Fixtures.user("large-family", null));
+        Account main = accounts.save(Fixtures.account(parent, null));
+        for (int i = 0; i < children; i++) {
+            User child = users.save(Fixtures.user("large-family-child" + i, parent));
+            for (int j = 0; j < accountsPerChild; j++) {
+                accounts.save(Fixtures.account(child, main));
+            }
+            childId = child.getId();
+        }
+        parentId = parent.getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stack.close();
+    }
+
+    @Benchmark
+    public List<AccountDto> parentAccounts() {
+        return accountService.getAccountsByUserId(parentId, parentId);
+    }
+
+    @Benchmark
+    public List<FamilyAccountDto> parentFamilyAccounts() {
+        return accountService.getFamilyAccounts(parentId, parentId);
+    }
+
+    @Benchmark
+    public List<AccountDto> childAccounts() {
+        return accountService.getAccountsByUserId(parentId, childId);
+    }
+}
@@ -0,0 +1,50 @@
+package com.familynest.benchmarks;
+
+import com.familynest.model.Account;
+import com.familynest.model.Transaction;
+import com.familynest.model.User;
+
+import java.math.BigDecimal;
+
+/**
+ * Unsaved entities for filling the in-memory repositories directly, without the services' side
+ * effects, so setup stays fast at millions of rows.
+ */
+final class Fixtures {
+
+    // The seeded users' hash of "password"; shared so millions of users cost one String
+    private static final String PASSWORD = "$2a$10$dXJ3SW6G7P50lGmMkkmwe.20cQQubK3.HZWzG3YB1tlRy.fqvM/BG";
+    private static final String[] DESCRIPTIONS = {"Weekly allowance", "Groceries", "Cinema tickets", "Savings transfer",
+            "School lunch", "Birthday gift", "Book store", "Bus pass"};
+
+    private Fixtures() {
+    }
+
+    static User user(String username, User parent) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword(PASSWORD);
+        user.setRole(parent == null ? User.Role.PARENT : User.Role.CHILD);
+        user.setParent(parent);
+        return user;
+    }
+
+    static Account account(User user, Account parentAccount) {
+        Account account = new Account();
+        account.setName(parentAccount == null ? "Main Account" : "Allowance Account");
+        account.setBalance(BigDecimal.ZERO);
+        account.setUser(user);
+        account.setParentAccount(parentAccount);
+        account.setIsParentAccount(parentAccount == null);
+        return account;
+    }
+
+    static Transaction transaction(Account account, long sequence) {
+        Transaction transaction = new Transaction();
+        transaction.setAccount(account);
+        transaction.setAmount(BigDecimal.valueOf(sequence % 2 == 0 ? -(sequence % 50 + 1) : 25, 0));
+        transaction.setDescription(DESCRIPTIONS[(int) (sequence % DESCRIPTIONS.length)]);
+        return transaction;
+    }
+}
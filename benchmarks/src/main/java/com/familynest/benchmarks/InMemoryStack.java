@@ -0,0 +1,58 @@
+package com.familynest.benchmarks;
+
+import com.familynest.config.SchedulingConfig;
+import com.familynest.config.StageMetrics;
+import com.familynest.repository.MockAccountRepository;
+import com.familynest.repository.MockOutboxEventRepository;
+import com.familynest.repository.MockTransactionRepository;
+import com.familynest.repository.MockUserRepository;
+import com.familynest.service.AccountLockManager;
+import com.familynest.service.AccountService;
+import com.familynest.service.BalanceStreamService;
+import com.familynest.service.FamilyBalanceService;
+import com.familynest.service.OutboxDispatcher;
+import com.familynest.service.OutboxService;
+import com.familynest.service.SpendingReportService;
+import com.familynest.service.TransactionSearchService;
+import com.familynest.service.TransactionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * The repository and service beans of the in-memory mode, wired without the web and security layers.
+ */
+public final class InMemoryStack implements AutoCloseable {
+
+    private final AnnotationConfigApplicationContext context;
+
+    public InMemoryStack() {
+        context = new AnnotationConfigApplicationContext();
+        context.register(
+                SimpleMeterRegistry.class,
+                StageMetrics.class,
+                MockUserRepository.class,
+                MockAccountRepository.class,
+                MockTransactionRepository.class,
+                MockOutboxEventRepository.class,
+                AccountLockManager.class,
+                FamilyBalanceService.class,
+                SpendingReportService.class,
+                TransactionSearchService.class,
+                SchedulingConfig.class,
+                BalanceStreamService.class,
+                OutboxService.class,
+                OutboxDispatcher.class,
+                AccountService.class,
+                TransactionService.class);
+        context.refresh();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,249 @@
+package com.familynest.benchmarks;
+
+import com.familynest.dto.FamilyAccountDto;
+import com.familynest.model.Account;
+import com.familynest.model.Transaction;
+import com.familynest.model.User;
+import com.familynest.repository.MockAccountRepository;
+import com.familynest.repository.MockTransactionRepository;
+import com.familynest.repository.MockUserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup latency of the in-memory repositories as they grow from 10^3 to 10^7 rows. Each state fills
+ * only the repository it measures, so a run at 10^7 rows holds one large table; users and accounts at
+ * that size need a heap of several GB ({@code -jvmArgsAppend -Xmx8g}).
+ * <p>
+ * Keys are drawn from a precomputed random sequence, so lookups miss the CPU caches the way a busy
+ * server's do instead of hitting the same row every time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryLookupBenchmark {
+
+    private static final int KEYS = 1 << 14;
+    private static final int CHILDREN_PER_FAMILY = 3;
+    private static final int ACCOUNTS_PER_USER = 2;
+    private static final int TRANSACTIONS_PER_ACCOUNT = 100;
+    private static final int PAGE_SIZE = 50;
+    private static final int SAVE_CHUNK = 10_000;
+
+    @State(Scope.Benchmark)
+    public static class Users {
+
+        @Param({"1000", "10000", "100000", "1000000", "10000000"})
+        public int rows;
+
+        private InMemoryStack stack;
+        private MockUserRepository repository;
+        private final long[] ids = new long[KEYS];
+        private final String[] usernames = new String[KEYS];
+        private final User[] parents = new User[KEYS];
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            stack = new InMemoryStack();
+            repository = stack.bean(MockUserRepository.class);
+            // Families of one parent and a few children, like the seeded data
+            User parent = null;
+            for (int i = 0; i < rows; i++) {
+                boolean isParent = i % (CHILDREN_PER_FAMILY + 1) == 0;
+                User user = repository.save(Fixtures.user("user" + i, isParent ? null : parent));
+                if (isParent) {
+                    parent = user;
+                }
+            }
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < KEYS; i++) {
+                int row = random.nextInt(rows);
+                User user = repository.findByUsername("user" + row).orElseThrow();
+                ids[i] = user.getId();
+                usernames[i] = user.getUsername();
+                parents[i] = user.getParent() != null ? user.getParent() : user;
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            stack.close();
+        }
+
+        int next() {
+            return next++ & (KEYS - 1);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Accounts {
+
+        @Param({"1000", "10000", "100000", "1000000", "10000000"})
+        public int rows;
+
+        private InMemoryStack stack;
+        private MockAccountRepository repository;
+        private final long[] ids = new long[KEYS];
+        private final User[] owners = new User[KEYS];
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            stack = new InMemoryStack();
+            MockUserRepository users = stack.bean(MockUserRepository.class);
+            repository = stack.bean(MockAccountRepository.class);
+            User owner = null;
+            List<Account> chunk = new ArrayList<>(SAVE_CHUNK);
+            for (int i = 0; i < rows; i++) {
+                if (i % ACCOUNTS_PER_USER == 0) {
+                    owner = users.save(Fixtures.user("owner" + i, null));
+                }
+                chunk.add(Fixtures.account(owner, null));
+                if (chunk.size() == SAVE_CHUNK || i == rows - 1) {
+                    repository.saveAll(chunk);
+                    chunk.clear();
+                }
+            }
+            // The stack seeds no accounts, so ids run from 1 to rows
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < KEYS; i++) {
+                Account account = repository.findById(1L + random.nextInt(rows)).orElseThrow();
+                ids[i] = account.getId();
+                owners[i] = account.getUser();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            stack.close();
+        }
+
+        int next() {
+            return next++ & (KEYS - 1);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Transactions {
+
+        @Param({"1000", "10000", "100000", "1000000", "10000000"})
+        public int rows;
+
+        private InMemoryStack stack;
+        private MockTransactionRepository repository;
+        private final long[] ids = new long[KEYS];
+        private final Account[] accounts = new Account[KEYS];
+        private final Transaction[] cursors = new Transaction[KEYS];
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            stack = new InMemoryStack();
+            User owner = stack.bean(MockUserRepository.class).findByUsername("parent").orElseThrow();
+            MockAccountRepository accountRepository = stack.bean(MockAccountRepository.class);
+            repository = stack.bean(MockTransactionRepository.class);
+
+            // Each account gets a history long enough to page through
+            int accountCount = Math.max(1, rows / TRANSACTIONS_PER_ACCOUNT);
+            List<Account> saved = new ArrayList<>(accountCount);
+            for (int i = 0; i < accountCount; i++) {
+                saved.add(accountRepository.save(Fixtures.account(owner, null)));
+            }
+            List<Transaction> chunk = new ArrayList<>(SAVE_CHUNK);
+            for (int i = 0; i < rows; i++) {
+                chunk.add(Fixtures.transaction(saved.get(i % accountCount), i));
+                if (chunk.size() == SAVE_CHUNK || i == rows - 1) {
+                    repository.saveAll(chunk);
+                    chunk.clear();
+                }
+            }
+
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < KEYS; i++) {
+                ids[i] = 1 + random.nextInt(rows);
+                accounts[i] = saved.get(random.nextInt(accountCount));
+                List<Transaction> newest = repository.findByAccountOrderByCreatedAtDescIdDesc(accounts[i], PageRequest.of(0, PAGE_SIZE));
+                cursors[i] = newest.get(newest.size() / 2);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            stack.close();
+        }
+
+        int next() {
+            return next++ & (KEYS - 1);
+        }
+    }
+
+    @Benchmark
+    public Optional<User> userFindById(Users state) {
+        return state.repository.findById(state.ids[state.next()]);
+    }
+
+    @Benchmark
+    public Optional<User> userFindByUsername(Users state) {
+        return state.repository.findByUsername(state.usernames[state.next()]);
+    }
+
+    @Benchmark
+    public List<User> userFindByParent(Users state) {
+        return state.repository.findByParent(state.parents[state.next()]);
+    }
+
+    @Benchmark
+    public Optional<Account> accountFindById(Accounts state) {
+        return state.repository.findById(state.ids[state.next()]);
+    }
+
+    @Benchmark
+    public List<Account> accountFindByUser(Accounts state) {
+        return state.repository.findByUser(state.owners[state.next()]);
+    }
+
+    @Benchmark
+    public List<FamilyAccountDto> accountFindFamilyAccounts(Accounts state) {
+        return state.repository.findFamilyAccounts(state.owners[state.next()].getId());
+    }
+
+    @Benchmark
+    public Optional<Transaction> transactionFindById(Transactions state) {
+        return state.repository.findById(state.ids[state.next()]);
+    }
+
+    @Benchmark
+    public List<Transaction> transactionNewestPage(Transactions state) {
+        return state.repository.findByAccountOrderByCreatedAtDescIdDesc(state.accounts[state.next()],
+                PageRequest.of(0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public List<Transaction> transactionPageBefore(Transactions state) {
+        int key = state.next();
+        Transaction cursor = state.cursors[key];
+        return state.repository.findByAccountBefore(state.accounts[key], cursor.getCreatedAt(), cursor.getId(),
+                PageRequest.of(0, PAGE_SIZE));
+    }
+}
@@ -0,0 +1,79 @@
+package com.familynest.benchmarks;
+
+import com.familynest.dto.BatchTransactionResponse;
+import com.familynest.dto.TransactionRequest;
+import com.familynest.service.AccountService;
+import com.familynest.service.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second ingested one POST at a time versus through the batch endpoint's service method,
+ * for an import of {@link #BATCH_SIZE} rows spread over {@link #ACCOUNTS} accounts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionIngestBenchmark {
+
+    private static final int ACCOUNTS = 20;
+    private static final int BATCH_SIZE = 1000;
+
+    private InMemoryStack stack;
+    private TransactionService transactionService;
+    private List<TransactionRequest> rows;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        stack = new InMemoryStack();
+        transactionService = stack.bean(TransactionService.class);
+        AccountService accountService = stack.bean(AccountService.class);
+        long[] accountIds = new long[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountIds[i] = accountService.createAccount(1L, "Account " + i, true).getId();
+        }
+        rows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            rows.add(new TransactionRequest(accountIds[i % ACCOUNTS], BigDecimal.valueOf(i % 50 + 1), "Weekly allowance"));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        stack.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int perRow() {
+        for (TransactionRequest row : rows) {
+            transactionService.createTransaction(row.getAccountId(), row.getAmount(), row.getDescription());
+        }
+        return rows.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public BatchTransactionResponse batch() {
+        return transactionService.createTransactions(rows);
+    }
+}
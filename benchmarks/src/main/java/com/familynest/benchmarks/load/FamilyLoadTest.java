@@ -0,0 +1,437 @@
+package com.familynest.benchmarks.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Finds how many concurrent families one node can serve. For each step of {@code --families} it
+ * registers the families that are still missing through the auth endpoints (a parent and
+ * {@code --children} children each), logs every member in, opens a savings account for the parent and
+ * seeds some history. It then sends the configured mix of requests at {@code --family-rate} requests
+ * per second per family and prints throughput and latency percentiles per endpoint.
+ * <p>
+ * Requests arrive open-loop as a Poisson process, and latency is measured from when a request was due
+ * rather than when it was sent, so a server that falls behind shows up as growing latency instead of
+ * as a load generator that politely slows down. Requests that would exceed {@code --max-in-flight}
+ * are counted as dropped. Against the in-memory mode:
+ *
+ * <pre>
+ * java -jar target/familynest-backend-0.0.1-SNAPSHOT-exec.jar --app.rate-limit.enabled=false
+ * java -cp benchmarks/target/benchmarks.jar com.familynest.benchmarks.load.FamilyLoadTest \
+ *     --url=http://localhost:8080 --families=50,100,200,400 --family-rate=1 --duration=60 \
+ *     --mix=transaction=30,balance=25,history=20,dashboard=15,search=5,report=5
+ * </pre>
+ *
+ * With the rate limiter on, requests it turns away are reported per endpoint as {@code limited}.
+ */
+public class FamilyLoadTest {
+
+    private static final String PASSWORD = "load-test-password";
+    private static final String[] PURCHASES = {"Groceries", "School lunch", "Cinema tickets", "Book store",
+            "Bus pass", "Ice cream", "Video game", "Birthday gift for Sam", "Swimming lessons", "Pocket money"};
+    private static final String[] SEARCH_WORDS = {"groc", "lunch", "cinema", "book", "bus", "gift", "pocket"};
+
+    enum Endpoint {
+        REGISTER("POST /api/auth/register"),
+        LOGIN("POST /api/auth/login"),
+        CREATE_ACCOUNT("POST /api/accounts"),
+        SEED_BATCH("POST /api/transactions/batch"),
+        TRANSACTION("POST /api/transactions"),
+        BALANCE("GET /api/accounts/family/balance"),
+        HISTORY("GET /api/transactions/account/{id}/page"),
+        DASHBOARD("GET /api/accounts/family/{id}"),
+        SEARCH("GET /api/transactions/search"),
+        REPORT("GET /api/reports/account/{id}");
+
+        private final String label;
+
+        Endpoint(String label) {
+            this.label = label;
+        }
+    }
+
+    // The workload endpoints a --mix may name
+    private static final Map<String, Endpoint> MIX_NAMES = Map.of(
+            "transaction", Endpoint.TRANSACTION,
+            "balance", Endpoint.BALANCE,
+            "history", Endpoint.HISTORY,
+            "dashboard", Endpoint.DASHBOARD,
+            "search", Endpoint.SEARCH,
+            "report", Endpoint.REPORT);
+
+    private record Member(long userId, String token, List<Long> accountIds) {
+    }
+
+    private record Family(Member parent, List<Member> children) {
+
+        Member randomMember(ThreadLocalRandom random) {
+            int index = random.nextInt(children.size() + 1);
+            return index == 0 ? parent : children.get(index - 1);
+        }
+    }
+
+    private final LoadClient client;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicInteger nextFamily = new AtomicInteger();
+    private final Map<Endpoint, Stats> stats = new EnumMap<>(Endpoint.class);
+
+    FamilyLoadTest(String baseUrl, ExecutorService executor) {
+        this.client = new LoadClient(baseUrl, HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(executor)
+                .build());
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new Stats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String baseUrl = options.getOrDefault("url", "http://localhost:8080");
+        int[] familySteps = parseInts(options.getOrDefault("families", "50,100,200"));
+        int children = Integer.parseInt(options.getOrDefault("children", "2"));
+        double familyRate = Double.parseDouble(options.getOrDefault("family-rate", "1"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        int seedTransactions = Integer.parseInt(options.getOrDefault("seed-transactions", "20"));
+        int setupThreads = Integer.parseInt(options.getOrDefault("setup-threads", "8"));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "2000"));
+        Map<Endpoint, Integer> mix = parseMix(options.getOrDefault("mix",
+                "transaction=30,balance=25,history=20,dashboard=15,search=5,report=5"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(4, setupThreads), runnable -> {
+            Thread thread = new Thread(runnable, "load-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        FamilyLoadTest test = new FamilyLoadTest(baseUrl, executor);
+        List<Family> families = new ArrayList<>();
+        for (int target : familySteps) {
+            long setupStart = System.nanoTime();
+            test.addFamilies(families, target, children, seedTransactions, setupThreads);
+            System.out.printf("%nSet up %d families in %.1fs%n", families.size(), (System.nanoTime() - setupStart) / 1e9);
+            test.printReport("setup", List.of(Endpoint.REGISTER, Endpoint.LOGIN, Endpoint.CREATE_ACCOUNT, Endpoint.SEED_BATCH),
+                    (System.nanoTime() - setupStart) / 1e9, 0);
+
+            double rate = target * familyRate;
+            test.run(families, mix, rate, warmupSeconds, maxInFlight);
+            test.resetWorkload();
+            long dropped = test.run(families, mix, rate, durationSeconds, maxInFlight);
+            System.out.printf("%nfamilies=%d members=%d target=%.1f req/s duration=%ds dropped=%d%n",
+                    families.size(), families.size() * (children + 1), rate, durationSeconds, dropped);
+            test.printReport("workload", new ArrayList<>(mix.keySet()), durationSeconds, dropped);
+        }
+        executor.shutdownNow();
+    }
+
+    // Registers and logs in families until there are {@code target} of them
+    private void addFamilies(List<Family> families, int target, int children, int seedTransactions, int threads)
+            throws InterruptedException {
+        int missing = target - families.size();
+        if (missing <= 0) {
+            return;
+        }
+        List<Family> created = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        AtomicInteger remaining = new AtomicInteger(missing);
+        AtomicLong failures = new AtomicLong();
+        for (int t = 0; t < Math.min(threads, missing); t++) {
+            Thread worker = new Thread(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    try {
+                        Family family = createFamily(children, seedTransactions);
+                        synchronized (created) {
+                            created.add(family);
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                        System.err.println("Family setup failed: " + e.getMessage());
+                    }
+                }
+            }, "load-setup-" + t);
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        families.addAll(created);
+        if (failures.get() > 0) {
+            System.err.printf("%d families could not be set up%n", failures.get());
+        }
+    }
+
+    private Family createFamily(int children, int seedTransactions) throws IOException, InterruptedException {
+        String name = "load-" + runId + "-" + nextFamily.incrementAndGet();
+        Member parent = registerAndLogin(name, "PARENT", null);
+        // Parents usually keep a second account next to the default one
+        parent.accountIds().add(client.createAccount(parent.userId(), "Savings", true, parent.token(),
+                listener(Endpoint.CREATE_ACCOUNT)));
+
+        List<Member> members = new ArrayList<>();
+        for (int c = 0; c < children; c++) {
+            members.add(registerAndLogin(name + "-child" + c, "CHILD", parent.userId()));
+        }
+        Family family = new Family(parent, members);
+
+        if (seedTransactions > 0) {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (Member member : familyMembers(family)) {
+                for (long accountId : member.accountIds()) {
+                    for (int i = 0; i < seedTransactions; i++) {
+                        rows.add(Map.of("accountId", accountId, "amount", amount(random), "description", description(random)));
+                    }
+                }
+            }
+            client.send(client.post("/api/transactions/batch", parent.token(), LoadClient.JSON.writeValueAsString(rows)),
+                    listener(Endpoint.SEED_BATCH));
+        }
+        return family;
+    }
+
+    private Member registerAndLogin(String username, String role, Long parentId) throws IOException, InterruptedException {
+        Map<String, Object> register = new LinkedHashMap<>();
+        register.put("username", username);
+        register.put("email", username + "@load.example.com");
+        register.put("password", PASSWORD);
+        register.put("role", role);
+        register.put("parentId", parentId);
+        long userId = client.send(client.post("/api/auth/register", null, LoadClient.JSON.writeValueAsString(register)),
+                listener(Endpoint.REGISTER)).get("id").asLong();
+        String token = client.login(username, PASSWORD, listener(Endpoint.LOGIN));
+
+        List<Long> accountIds = new ArrayList<>();
+        for (JsonNode account : client.send(client.get("/api/accounts/user/" + userId, token), null)) {
+            accountIds.add(account.get("id").asLong());
+        }
+        return new Member(userId, token, accountIds);
+    }
+
+    /**
+     * Sends requests for {@code seconds} at {@code rate} per second on average and waits for the
+     * stragglers. Returns the number of requests dropped because too many were in flight.
+     */
+    private long run(List<Family> families, Map<Endpoint, Integer> mix, double rate, int seconds, int maxInFlight)
+            throws InterruptedException {
+        if (families.isEmpty() || seconds <= 0 || rate <= 0) {
+            return 0;
+        }
+        List<Endpoint> weighted = new ArrayList<>();
+        mix.forEach((endpoint, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(endpoint);
+            }
+        });
+
+        AtomicInteger inFlight = new AtomicInteger();
+        long dropped = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        double meanGapNanos = 1e9 / rate;
+        long due = start;
+        while (true) {
+            due += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos);
+            if (due >= end) {
+                break;
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (inFlight.get() >= maxInFlight) {
+                dropped++;
+                continue;
+            }
+            Family family = families.get(random.nextInt(families.size()));
+            Endpoint endpoint = weighted.get(random.nextInt(weighted.size()));
+            HttpRequest request = workloadRequest(endpoint, family, random);
+            inFlight.incrementAndGet();
+            long intendedStart = due;
+            client.http().sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                inFlight.decrementAndGet();
+                stats.get(endpoint).record(intendedStart, error == null ? response.statusCode() : -1);
+            });
+        }
+        // Let the requests still in flight finish so they count towards this step
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        return dropped;
+    }
+
+    private HttpRequest workloadRequest(Endpoint endpoint, Family family, ThreadLocalRandom random) {
+        Member member = family.randomMember(random);
+        long accountId = member.accountIds().get(random.nextInt(member.accountIds().size()));
+        Member parent = family.parent();
+        return switch (endpoint) {
+            case TRANSACTION -> HttpRequest.newBuilder(client.uri("/api/transactions?accountId=" + accountId
+                            + "&amount=" + amount(random) + "&description=" + encode(description(random))))
+                    .header("Authorization", "Bearer " + member.token())
+                    // Mobile clients send one so that their retries are safe
+                    .header("Idempotency-Key", UUID.randomUUID().toString())
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            case BALANCE -> client.get("/api/accounts/family/balance", parent.token());
+            case HISTORY -> client.get("/api/transactions/account/" + accountId + "/page?limit=20", member.token());
+            case DASHBOARD -> client.get("/api/accounts/family/" + parent.userId(), parent.token());
+            case SEARCH -> client.get("/api/transactions/search?q=" + SEARCH_WORDS[random.nextInt(SEARCH_WORDS.length)]
+                    + "&limit=20", member.token());
+            case REPORT -> client.get("/api/reports/account/" + accountId, member.token());
+            default -> throw new IllegalArgumentException("Not a workload endpoint: " + endpoint);
+        };
+    }
+
+    private void resetWorkload() {
+        stats.values().forEach(Stats::reset);
+    }
+
+    private void printReport(String title, List<Endpoint> endpoints, double seconds, long dropped) {
+        System.out.printf("%-40s %8s %9s %7s %8s %7s %9s %9s %9s %9s %9s%n", title, "count", "req/s", "ok",
+                "limited", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        Histogram total = LoadClient.histogram();
+        long ok = 0;
+        long limited = 0;
+        long errors = 0;
+        for (Endpoint endpoint : endpoints) {
+            Snapshot snapshot = stats.get(endpoint).take();
+            total.add(snapshot.histogram());
+            ok += snapshot.ok();
+            limited += snapshot.limited();
+            errors += snapshot.errors();
+            printRow(endpoint.label, snapshot.histogram(), seconds, snapshot.ok(), snapshot.limited(), snapshot.errors());
+        }
+        printRow("all", total, seconds, ok, limited, errors + dropped);
+    }
+
+    private static void printRow(String label, Histogram histogram, double seconds, long ok, long limited, long errors) {
+        System.out.printf(Locale.ROOT, "%-40s %8d %9.1f %7d %8d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n", label,
+                histogram.getTotalCount(), seconds > 0 ? histogram.getTotalCount() / seconds : 0.0, ok, limited, errors,
+                LoadClient.millis(histogram, 50), LoadClient.millis(histogram, 90),
+                LoadClient.millis(histogram, 99), LoadClient.millis(histogram, 99.9),
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    // Records every attempt of a setup call under the endpoint
+    private LoadClient.ResponseListener listener(Endpoint endpoint) {
+        return stats.get(endpoint)::record;
+    }
+
+    private static List<Member> familyMembers(Family family) {
+        List<Member> members = new ArrayList<>(family.children());
+        members.add(0, family.parent());
+        return members;
+    }
+
+    // Mostly small purchases, with the occasional deposit
+    private static String amount(ThreadLocalRandom random) {
+        return random.nextInt(10) == 0
+                ? String.valueOf(20 + random.nextInt(80))
+                : String.format(Locale.ROOT, "-%d.%02d", 1 + random.nextInt(30), random.nextInt(100));
+    }
+
+    private static String description(ThreadLocalRandom random) {
+        return PURCHASES[random.nextInt(PURCHASES.length)];
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            int split = arg.indexOf('=');
+            options.put(arg.substring(2, split), arg.substring(split + 1));
+        }
+        return options;
+    }
+
+    private static int[] parseInts(String list) {
+        return Arrays.stream(list.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String mix) {
+        Map<Endpoint, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] entry = part.split("=");
+            Endpoint endpoint = MIX_NAMES.get(entry[0].trim());
+            if (endpoint == null || entry.length != 2) {
+                throw new IllegalArgumentException("Unknown mix entry " + part + "; use " + MIX_NAMES.keySet());
+            }
+            int weight = Integer.parseInt(entry[1].trim());
+            if (weight > 0) {
+                weights.put(endpoint, weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The mix must give at least one endpoint a positive weight");
+        }
+        return weights;
+    }
+
+    private record Snapshot(Histogram histogram, long ok, long limited, long errors) {
+    }
+
+    /**
+     * Latency and outcomes of one endpoint. The recorder takes samples from many completion threads
+     * without locking; each report takes the samples recorded since the previous one.
+     */
+    private static final class Stats {
+        private final Recorder recorder = new Recorder(LoadClient.HIGHEST_TRACKABLE_MICROS, 3);
+        private final AtomicLong ok = new AtomicLong();
+        private final AtomicLong limited = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+
+        void record(long intendedStartNanos, int status) {
+            recorder.recordValue(LoadClient.micros(intendedStartNanos));
+            if (status >= 200 && status < 300) {
+                ok.incrementAndGet();
+            } else if (status == 429) {
+                limited.incrementAndGet();
+            } else {
+                errors.incrementAndGet();
+            }
+        }
+
+        Snapshot take() {
+            return new Snapshot(recorder.getIntervalHistogram(), ok.getAndSet(0), limited.getAndSet(0), errors.getAndSet(0));
+        }
+
+        void reset() {
+            recorder.reset();
+            ok.set(0);
+            limited.set(0);
+            errors.set(0);
+        }
+    }
+}
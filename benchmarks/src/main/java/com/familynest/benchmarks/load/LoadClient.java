@@ -0,0 +1,112 @@
+package com.familynest.benchmarks.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the load tests share: requests against one backend, setup calls that wait out the rate limiter,
+ * logging in and opening accounts, and latencies kept in microsecond histograms.
+ */
+final class LoadClient {
+
+    static final ObjectMapper JSON = new ObjectMapper();
+    static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    // Sees the outcome of every attempt of a setup call, including those the rate limiter turned away
+    interface ResponseListener {
+        void onResponse(long startNanos, int status);
+    }
+
+    private final String baseUrl;
+    private final HttpClient http;
+
+    LoadClient(String baseUrl, HttpClient http) {
+        this.baseUrl = baseUrl;
+        this.http = http;
+    }
+
+    HttpClient http() {
+        return http;
+    }
+
+    URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    HttpRequest get(String path, String token) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+
+    HttpRequest post(String path, String token, String json) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri(path))
+                .POST(json == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(json));
+        if (json != null) {
+            builder.header("Content-Type", "application/json");
+        }
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    // Sends a setup request synchronously, retrying when the rate limiter asks to, and returns the JSON body
+    JsonNode send(HttpRequest request, ResponseListener listener) throws IOException, InterruptedException {
+        while (true) {
+            long start = System.nanoTime();
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            if (listener != null) {
+                listener.onResponse(start, response.statusCode());
+            }
+            if (response.statusCode() == 429) {
+                long retryAfter = response.headers().firstValueAsLong("Retry-After").orElse(1);
+                Thread.sleep(TimeUnit.SECONDS.toMillis(retryAfter));
+                continue;
+            }
+            if (response.statusCode() != 200) {
+                throw new IOException(request.method() + " " + request.uri().getPath() + " returned "
+                        + response.statusCode() + ": " + response.body());
+            }
+            return JSON.readTree(response.body());
+        }
+    }
+
+    // Returns the user's JWT
+    String login(String username, String password, ResponseListener listener) throws IOException, InterruptedException {
+        return send(post("/api/auth/login", null,
+                JSON.writeValueAsString(Map.of("username", username, "password", password))), listener)
+                .get("token").asText();
+    }
+
+    // Opens an account for the user and returns its id
+    long createAccount(long userId, String name, boolean parentAccount, String token, ResponseListener listener)
+            throws IOException, InterruptedException {
+        return send(post("/api/accounts?userId=" + userId + "&name=" + name + "&isParentAccount=" + parentAccount,
+                token, null), listener).get("id").asLong();
+    }
+
+    static Histogram histogram() {
+        return new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+    }
+
+    // Microseconds since the start, clamped to what the histograms hold
+    static long micros(long startNanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        return Math.min(Math.max(micros, 0), HIGHEST_TRACKABLE_MICROS);
+    }
+
+    static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
@@ -0,0 +1,91 @@
+package com.familynest.benchmarks.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives a running backend with a fixed number of concurrent clients reading balances and
+ * transaction pages, and prints throughput and latency percentiles. Run it once against the
+ * default platform-thread server and once against the {@code virtual} profile to compare:
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.familynest.benchmarks.load.ThreadModeLoadTest \
+ *     http://localhost:8080 1000 30
+ * </pre>
+ *
+ * Logs in as the seeded {@code parent} user and creates one account to read from.
+ */
+public class ThreadModeLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int durationSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        LoadClient client = new LoadClient(baseUrl, HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build());
+        String token = client.login("parent", "password", null);
+        long accountId = client.createAccount(1L, "Load", true, token, null);
+
+        HttpRequest accounts = client.get("/api/accounts/user/1", token);
+        HttpRequest transactions = client.get("/api/transactions/account/" + accountId + "/page?limit=20", token);
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(durationSeconds).toNanos();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peakInFlight = new AtomicInteger();
+        AtomicLong errors = new AtomicLong();
+        Histogram[] latencies = new Histogram[clients];
+        CountDownLatch done = new CountDownLatch(clients);
+
+        for (int c = 0; c < clients; c++) {
+            final int clientIndex = c;
+            Thread thread = new Thread(() -> {
+                Histogram samples = LoadClient.histogram();
+                try {
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = (samples.getTotalCount() & 1) == 0 ? accounts : transactions;
+                        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.http().send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        } finally {
+                            inFlight.decrementAndGet();
+                        }
+                        samples.recordValue(LoadClient.micros(start));
+                    }
+                } finally {
+                    latencies[clientIndex] = samples;
+                    done.countDown();
+                }
+            }, "load-client-" + c);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        Histogram all = LoadClient.histogram();
+        for (Histogram samples : latencies) {
+            all.add(samples);
+        }
+        long total = all.getTotalCount();
+
+        System.out.printf("clients=%d duration=%ds requests=%d errors=%d throughput=%.0f req/s peakInFlight=%d%n",
+                clients, durationSeconds, total, errors.get(), total / (double) durationSeconds, peakInFlight.get());
+        System.out.printf("latency ms: p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+                LoadClient.millis(all, 50), LoadClient.millis(all, 90), LoadClient.millis(all, 99),
+                LoadClient.millis(all, 99.9), all.getMaxValue() / 1000.0);
+    }
+}
@@ -0,0 +1,108 @@
+package com.familynest.config;
+
+import com.familynest.config.JwtUtil.TokenClaims;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps already-verified JWTs and the UserDetails they resolve to, so a request carrying a token we
+ * have seen before costs a hash lookup instead of an HMAC check and a repository read.
+ * <p>
+ * Token entries expire together with the token itself. User entries expire after a fixed TTL and
+ * are dropped through {@link #evictUser} whenever the user changes.
+ */
+@Component
+public class JwtAuthCache {
+
+    private final JwtUtil jwtUtil;
+    private final UserDetailsService userDetailsService;
+    private final StageMetrics stageMetrics;
+    private final Cache<String, TokenClaims> tokens;
+    private final Cache<String, UserDetails> users;
+
+    @Autowired
+    public JwtAuthCache(JwtUtil jwtUtil,
+                        UserDetailsService userDetailsService,
+                        StageMetrics stageMetrics,
+                        @Value("${app.auth-cache.max-tokens:100000}") long maxTokens,
+                        @Value("${app.auth-cache.max-users:10000}") long maxUsers,
+                        @Value("${app.auth-cache.user-ttl:PT5M}") Duration userTtl) {
+        this.jwtUtil = jwtUtil;
+        this.userDetailsService = userDetailsService;
+        this.stageMetrics = stageMetrics;
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maxTokens)
+                .expireAfter(new TokenExpiry())
+                .build();
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(userTtl)
+                .build();
+    }
+
+    /**
+     * Returns the claims of the raw JWT, parsing and checking its signature only on a cache miss.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, badly signed or expired
+     */
+    public TokenClaims verify(String jwt) {
+        TokenClaims token = tokens.getIfPresent(jwt);
+        if (token != null && !token.isExpired()) {
+            stageMetrics.increment(StageMetrics.Event.TOKEN_CACHE_HIT);
+            return token;
+        }
+        stageMetrics.increment(StageMetrics.Event.TOKEN_CACHE_MISS);
+        long start = stageMetrics.start();
+        try {
+            token = jwtUtil.parseToken(jwt);
+        } finally {
+            stageMetrics.stop(StageMetrics.Stage.JWT_PARSE, start);
+        }
+        tokens.put(jwt, token);
+        return token;
+    }
+
+    public UserDetails loadUser(String username) {
+        UserDetails userDetails = users.getIfPresent(username);
+        if (userDetails != null) {
+            stageMetrics.increment(StageMetrics.Event.USER_CACHE_HIT);
+        } else {
+            stageMetrics.increment(StageMetrics.Event.USER_CACHE_MISS);
+            // Loaded outside the cache's compute lock so a slow repository call never pins a virtual thread
+            userDetails = userDetailsService.loadUserByUsername(username);
+            users.put(username, userDetails);
+        }
+        return userDetails;
+    }
+
+    public void evictUser(String username) {
+        users.invalidate(username);
+    }
+
+    private static final class TokenExpiry implements Expiry<String, TokenClaims> {
+        @Override
+        public long expireAfterCreate(String key, TokenClaims value, long currentTime) {
+            long remainingMillis = value.expiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, TokenClaims value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, TokenClaims value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
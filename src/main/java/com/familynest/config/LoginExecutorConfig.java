@@ -0,0 +1,35 @@
+package com.familynest.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class LoginExecutorConfig {
+
+    /**
+     * Runs password verification for logins. BCrypt is deliberately slow, so a burst of logins is
+     * confined to these threads and a bounded queue; anything beyond that is rejected straight away
+     * instead of tying up request threads.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public WorkerPool<ThreadPoolExecutor> loginPool(
+            @Value("${app.login.threads:0}") int threads,
+            @Value("${app.login.queue-capacity:200}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "login-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new WorkerPool<>(new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy()));
+    }
+}
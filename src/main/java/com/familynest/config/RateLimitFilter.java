@@ -0,0 +1,151 @@
+package com.familynest.config;
+
+import com.familynest.service.FamilyUserDetails;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rejects requests beyond their budget with 429 and a {@code Retry-After} header, before any
+ * controller or BCrypt work is done.
+ * <p>
+ * Auth endpoints are limited per client IP. Writes (POST, PUT, PATCH, DELETE elsewhere) are limited
+ * per authenticated user and, with a larger budget, per family, so one runaway client cannot starve
+ * the rest of its family or the server. Reads are not limited.
+ * <p>
+ * Each key has a token bucket held in a single {@code long}: the time at which the bucket will be full
+ * again. A request moves that time forward by one token's worth with a compare-and-set, so checking a
+ * budget takes no lock. Keys idle for {@code app.rate-limit.idle} are dropped, which costs nothing
+ * since an idle bucket has refilled anyway.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+    private final Budget authBudget;
+    private final Budget userWriteBudget;
+    private final Budget familyWriteBudget;
+    private final Cache<String, AtomicLong> buckets;
+    private final StageMetrics stageMetrics;
+
+    @Autowired
+    public RateLimitFilter(@Value("${app.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${app.rate-limit.auth.per-minute:20}") long authPerMinute,
+                           @Value("${app.rate-limit.auth.burst:10}") long authBurst,
+                           @Value("${app.rate-limit.write.user-per-minute:600}") long userPerMinute,
+                           @Value("${app.rate-limit.write.user-burst:100}") long userBurst,
+                           @Value("${app.rate-limit.write.family-per-minute:1500}") long familyPerMinute,
+                           @Value("${app.rate-limit.write.family-burst:250}") long familyBurst,
+                           @Value("${app.rate-limit.max-keys:100000}") long maxKeys,
+                           @Value("${app.rate-limit.idle:PT10M}") Duration idle,
+                           StageMetrics stageMetrics) {
+        this.enabled = enabled;
+        this.stageMetrics = stageMetrics;
+        this.authBudget = new Budget("auth:", authPerMinute, authBurst, StageMetrics.Event.RATE_LIMITED_AUTH);
+        this.userWriteBudget = new Budget("user:", userPerMinute, userBurst, StageMetrics.Event.RATE_LIMITED_USER);
+        this.familyWriteBudget = new Budget("family:", familyPerMinute, familyBurst, StageMetrics.Event.RATE_LIMITED_FAMILY);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idle)
+                .build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        long waitNanos = enabled ? waitNanos(request) : 0;
+        if (waitNanos > 0) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999))));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests, please retry later");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    // How long the client has to wait, or 0 when the request is within every budget that applies to it
+    private long waitNanos(HttpServletRequest request) {
+        long now = System.nanoTime();
+        if (request.getServletPath().startsWith("/api/auth/")) {
+            return authBudget.take(request.getRemoteAddr(), now);
+        }
+        if (!isWrite(request.getMethod())) {
+            return 0;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            // Refused by the authorization rules anyway, without touching a controller
+            return 0;
+        }
+        long wait = userWriteBudget.take(authentication.getName(), now);
+        if (wait == 0 && authentication.getPrincipal() instanceof FamilyUserDetails user && user.getFamilyId() != null) {
+            wait = familyWriteBudget.take(user.getFamilyId().toString(), now);
+            if (wait > 0) {
+                // The request is not run, so the user is not charged for it
+                userWriteBudget.refund(authentication.getName());
+            }
+        }
+        return wait;
+    }
+
+    private static boolean isWrite(String method) {
+        return switch (method) {
+            case "POST", "PUT", "PATCH", "DELETE" -> true;
+            default -> false;
+        };
+    }
+
+    private final class Budget {
+        private final String prefix;
+        private final StageMetrics.Event rejected;
+        // Refill time of one token, and how far ahead of now the bucket may be drawn (the burst)
+        private final long intervalNanos;
+        private final long burstNanos;
+
+        Budget(String prefix, long perMinute, long burst, StageMetrics.Event rejected) {
+            this.prefix = prefix;
+            this.rejected = rejected;
+            this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, perMinute);
+            this.burstNanos = intervalNanos * Math.max(1, burst);
+        }
+
+        long take(String key, long now) {
+            AtomicLong fullAt = buckets.get(prefix + key, k -> new AtomicLong(now));
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + intervalNanos;
+                if (next - now > burstNanos) {
+                    stageMetrics.increment(rejected);
+                    return next - now - burstNanos;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        // Gives back a token taken for a request that another budget then rejected
+        void refund(String key) {
+            AtomicLong fullAt = buckets.getIfPresent(prefix + key);
+            if (fullAt != null) {
+                fullAt.addAndGet(-intervalNanos);
+            }
+        }
+    }
+}
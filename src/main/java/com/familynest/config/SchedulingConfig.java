@@ -0,0 +1,82 @@
+package com.familynest.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    /**
+     * Pays due allowances in parallel. A tick submits at most one task per paying account in the
+     * current batch and waits for them, so the queue never grows beyond the batch size.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public WorkerPool<ThreadPoolExecutor> allowancePool(@Value("${app.allowances.threads:0}") int threads) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "allowance-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new WorkerPool<>(new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory));
+    }
+
+    /**
+     * Times pushed events: coalescing delays and send deadlines. It never writes to a client itself,
+     * so a client that stops reading cannot hold it up.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public WorkerPool<ScheduledThreadPoolExecutor> pushPool(@Value("${app.push.threads:0}") int threads) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "push-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(poolSize, threadFactory);
+        executor.setRemoveOnCancelPolicy(true);
+        return new WorkerPool<>(executor);
+    }
+
+    /**
+     * Writes pushed events to subscribers. A subscriber is flushed by at most one thread at a time,
+     * so the queue never holds more than one task per subscriber and events are never out of order.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public WorkerPool<ThreadPoolExecutor> pushWriterPool(@Value("${app.push.writer-threads:32}") int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "push-writer-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return new WorkerPool<>(executor);
+    }
+
+    // One thread, so outbox batches reach the consumers strictly in order
+    @Bean(destroyMethod = "shutdown")
+    public WorkerPool<ThreadPoolExecutor> outboxPool() {
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "outbox-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new WorkerPool<>(new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory));
+    }
+}
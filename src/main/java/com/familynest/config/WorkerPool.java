@@ -0,0 +1,33 @@
+package com.familynest.config;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * A thread pool the application keeps for one kind of work, injected by bean name.
+ * <p>
+ * The pools are registered as this type rather than as {@link java.util.concurrent.Executor} beans:
+ * Spring Boot only sets up its own task executor, which serves async MVC requests and {@code @Async},
+ * when the context holds no Executor bean, and otherwise those fall back to an unbounded one. In the
+ * same way, a {@link java.util.concurrent.ScheduledExecutorService} bean would replace Boot's task
+ * scheduler and run every {@code @Scheduled} method on that pool.
+ */
+public final class WorkerPool<E extends ExecutorService> {
+
+    private final E executor;
+
+    public WorkerPool(E executor) {
+        this.executor = executor;
+    }
+
+    public E executor() {
+        return executor;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public void shutdownNow() {
+        executor.shutdownNow();
+    }
+}
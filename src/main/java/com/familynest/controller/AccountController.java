@@ -1,11 +1,16 @@
 
 package com.familynest.controller;
 
-import com.familynest.model.Account;
+import com.familynest.dto.AccountDto;
+import com.familynest.dto.FamilyAccountDto;
+import com.familynest.dto.FamilyBalanceDto;
 import com.familynest.service.AccountService;
+import com.familynest.service.FamilyBalanceService;
+import com.familynest.service.FamilyUserDetails;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -17,22 +22,37 @@ public class AccountController {
     @Autowired
     private AccountService accountService;
 
+    @Autowired
+    private FamilyBalanceService familyBalanceService;
+
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Account>> getAccountsByUserId(@PathVariable Long userId) {
-        return ResponseEntity.ok(accountService.getAccountsByUserId(userId));
+    public ResponseEntity<List<AccountDto>> getAccountsByUserId(@PathVariable Long userId,
+                                                                @AuthenticationPrincipal FamilyUserDetails caller) {
+        return ResponseEntity.ok(accountService.getAccountsByUserId(caller.getFamilyId(), userId));
+    }
+
+    @GetMapping("/family/{userId}")
+    public ResponseEntity<List<FamilyAccountDto>> getFamilyAccounts(@PathVariable Long userId,
+                                                                    @AuthenticationPrincipal FamilyUserDetails caller) {
+        return ResponseEntity.ok(accountService.getFamilyAccounts(caller.getFamilyId(), userId));
+    }
+
+    @GetMapping("/family/balance")
+    public ResponseEntity<FamilyBalanceDto> getFamilyBalance(@AuthenticationPrincipal FamilyUserDetails caller) {
+        return ResponseEntity.ok(familyBalanceService.getFamilyBalance(caller.getFamilyId()));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Account> getAccountById(@PathVariable Long id) {
-        return ResponseEntity.ok(accountService.getAccountById(id));
+    public ResponseEntity<AccountDto> getAccountById(@PathVariable Long id) {
+        return ResponseEntity.ok(AccountDto.fromEntity(accountService.getAccountById(id)));
     }
 
     @PostMapping
-    public ResponseEntity<Account> createAccount(
+    public ResponseEntity<AccountDto> createAccount(
             @RequestParam Long userId,
             @RequestParam String name,
             @RequestParam(defaultValue = "false") boolean isParentAccount) {
         
-        return ResponseEntity.ok(accountService.createAccount(userId, name, isParentAccount));
+        return ResponseEntity.ok(AccountDto.fromEntity(accountService.createAccount(userId, name, isParentAccount)));
     }
 }
@@ -0,0 +1,43 @@
+package com.familynest.controller;
+
+import com.familynest.dto.AllowanceRuleDto;
+import com.familynest.dto.AllowanceRuleRequest;
+import com.familynest.service.AllowanceService;
+import com.familynest.service.FamilyUserDetails;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/allowances")
+public class AllowanceController {
+
+    @Autowired
+    private AllowanceService allowanceService;
+
+    @GetMapping("/account/{accountId}")
+    public ResponseEntity<List<AllowanceRuleDto>> getRulesByAccountId(@PathVariable Long accountId,
+                                                                      @AuthenticationPrincipal FamilyUserDetails caller) {
+        return ResponseEntity.ok(allowanceService.getRulesByAccountId(caller.getFamilyId(), accountId).stream()
+                .map(AllowanceRuleDto::fromEntity)
+                .toList());
+    }
+
+    @PostMapping
+    @PreAuthorize("hasRole('PARENT')")
+    public ResponseEntity<AllowanceRuleDto> createRule(@RequestBody AllowanceRuleRequest request,
+                                                       @AuthenticationPrincipal FamilyUserDetails caller) {
+        return ResponseEntity.ok(AllowanceRuleDto.fromEntity(allowanceService.createRule(caller.getFamilyId(), request)));
+    }
+
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('PARENT')")
+    public ResponseEntity<AllowanceRuleDto> cancelRule(@PathVariable Long id,
+                                                       @AuthenticationPrincipal FamilyUserDetails caller) {
+        return ResponseEntity.ok(AllowanceRuleDto.fromEntity(allowanceService.cancelRule(caller.getFamilyId(), id)));
+    }
+}
@@ -5,12 +5,17 @@ import com.familynest.dto.LoginRequest;
 import com.familynest.dto.LoginResponse;
 import com.familynest.dto.RegisterRequest;
 import com.familynest.dto.UserDto;
+import com.familynest.service.IdempotencyService;
 import com.familynest.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
@@ -18,13 +23,25 @@ public class AuthController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest loginRequest) {
-        return ResponseEntity.ok(userService.login(loginRequest));
+    public CompletableFuture<ResponseEntity<LoginResponse>> login(@Valid @RequestBody LoginRequest loginRequest) {
+        return userService.loginAsync(loginRequest).thenApply(ResponseEntity::ok);
     }
 
     @PostMapping("/register")
-    public ResponseEntity<UserDto> register(@Valid @RequestBody RegisterRequest registerRequest) {
-        return ResponseEntity.ok(userService.register(registerRequest));
+    public ResponseEntity<UserDto> register(
+            @Valid @RequestBody RegisterRequest registerRequest,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+
+        // A retry returns the registered user without encoding the password again. Only a digest of the
+        // password is kept, and it has to match, so a replayed key does not hand out someone else's user.
+        List<Object> request = Arrays.asList(registerRequest.getUsername(), registerRequest.getEmail(),
+                registerRequest.getRole(), registerRequest.getParentId(),
+                IdempotencyService.digest(List.of(registerRequest.getPassword())));
+        return ResponseEntity.ok(idempotencyService.execute("register", idempotencyKey, request,
+                () -> userService.register(registerRequest)));
     }
 }
@@ -0,0 +1,63 @@
+package com.familynest.controller;
+
+import com.familynest.dto.MonthlySpendingDto;
+import com.familynest.dto.SpendingReportDto;
+import com.familynest.service.FamilyUserDetails;
+import com.familynest.service.SpendingReportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.util.stream.Stream;
+
+@RestController
+@RequestMapping("/api/reports")
+public class ReportController {
+
+    @Autowired
+    private SpendingReportService spendingReportService;
+
+    @GetMapping("/account/{accountId}")
+    public ResponseEntity<SpendingReportDto> getAccountReport(
+            @PathVariable Long accountId,
+            @RequestParam(required = false) YearMonth from,
+            @RequestParam(required = false) YearMonth to,
+            @RequestParam(defaultValue = "5") int top,
+            @AuthenticationPrincipal FamilyUserDetails caller) {
+
+        return ResponseEntity.ok(spendingReportService.getAccountReport(caller.getFamilyId(), accountId, from, to, top));
+    }
+
+    @GetMapping("/account/{accountId}/months")
+    public ResponseEntity<Stream<MonthlySpendingDto>> getAccountMonths(
+            @PathVariable Long accountId,
+            @RequestParam(required = false) YearMonth from,
+            @RequestParam(required = false) YearMonth to,
+            @AuthenticationPrincipal FamilyUserDetails caller) {
+
+        return ResponseEntity.ok(spendingReportService.getAccountMonths(caller.getFamilyId(), accountId, from, to));
+    }
+
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<SpendingReportDto> getUserReport(
+            @PathVariable Long userId,
+            @RequestParam(required = false) YearMonth from,
+            @RequestParam(required = false) YearMonth to,
+            @RequestParam(defaultValue = "5") int top,
+            @AuthenticationPrincipal FamilyUserDetails caller) {
+
+        return ResponseEntity.ok(spendingReportService.getUserReport(caller.getFamilyId(), userId, from, to, top));
+    }
+
+    @GetMapping("/user/{userId}/months")
+    public ResponseEntity<Stream<MonthlySpendingDto>> getUserMonths(
+            @PathVariable Long userId,
+            @RequestParam(required = false) YearMonth from,
+            @RequestParam(required = false) YearMonth to,
+            @AuthenticationPrincipal FamilyUserDetails caller) {
+
+        return ResponseEntity.ok(spendingReportService.getUserMonths(caller.getFamilyId(), userId, from, to));
+    }
+}
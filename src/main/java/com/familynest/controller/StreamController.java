@@ -0,0 +1,24 @@
+package com.familynest.controller;
+
+import com.familynest.service.BalanceStreamService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.security.Principal;
+
+@RestController
+@RequestMapping("/api/stream")
+public class StreamController {
+
+    @Autowired
+    private BalanceStreamService balanceStreamService;
+
+    // Server-sent events: "balance", "transaction" and "resync"; replaces polling accounts and transactions.
+    // Always the caller's own stream, so a client cannot listen in on another family.
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(Principal principal) {
+        return balanceStreamService.subscribe(principal.getName());
+    }
+}
@@ -1,14 +1,23 @@
 
 package com.familynest.controller;
 
-import com.familynest.model.Transaction;
+import com.familynest.dto.BatchTransactionResponse;
+import com.familynest.dto.TransactionDto;
+import com.familynest.dto.TransactionPage;
+import com.familynest.dto.TransactionRequest;
+import com.familynest.service.IdempotencyService;
+import com.familynest.service.TransactionSearchService;
 import com.familynest.service.TransactionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/transactions")
@@ -17,17 +26,67 @@ public class TransactionController {
     @Autowired
     private TransactionService transactionService;
 
+    @Autowired
+    private TransactionSearchService transactionSearchService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @GetMapping("/account/{accountId}")
-    public ResponseEntity<List<Transaction>> getTransactionsByAccountId(@PathVariable Long accountId) {
-        return ResponseEntity.ok(transactionService.getTransactionsByAccountId(accountId));
+    public ResponseEntity<Stream<TransactionDto>> getTransactionsByAccountId(@PathVariable Long accountId) {
+        // Mapped lazily: Jackson writes each DTO as it is produced instead of building a list first
+        return ResponseEntity.ok(transactionService.getTransactionsByAccountId(accountId).stream().map(TransactionDto::fromEntity));
+    }
+
+    @GetMapping("/account/{accountId}/page")
+    public ResponseEntity<TransactionPage> getTransactionPage(
+            @PathVariable Long accountId,
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "50") int limit) {
+
+        return ResponseEntity.ok(transactionService.getTransactionPage(accountId, before, limit));
+    }
+
+    // Searches the caller's own family only; there is no way to name another user
+    @GetMapping("/search")
+    public ResponseEntity<TransactionPage> search(
+            @RequestParam String q,
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "50") int limit,
+            Principal principal) {
+
+        return ResponseEntity.ok(transactionSearchService.search(principal.getName(), q, before, limit));
     }
 
     @PostMapping
-    public ResponseEntity<Transaction> createTransaction(
+    public ResponseEntity<TransactionDto> createTransaction(
             @RequestParam Long accountId,
             @RequestParam BigDecimal amount,
-            @RequestParam String description) {
-        
-        return ResponseEntity.ok(transactionService.createTransaction(accountId, amount, description));
+            @RequestParam String description,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+            Principal principal) {
+
+        // A retried request returns the stored result instead of moving the balance again
+        return ResponseEntity.ok(idempotencyService.execute("transaction:" + principal.getName(), idempotencyKey,
+                new TransactionRequest(accountId, amount, description),
+                () -> TransactionDto.fromEntity(transactionService.createTransaction(accountId, amount, description))));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<BatchTransactionResponse> createTransactions(
+            @RequestBody List<TransactionRequest> requests,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+            Principal principal) {
+
+        // Keyed by a digest of the rows, so a remembered batch costs the same as any other key
+        List<Object> rows = new ArrayList<>(requests.size() * 4);
+        for (TransactionRequest request : requests) {
+            rows.add(request != null);
+            if (request != null) {
+                rows.addAll(Arrays.asList(request.getAccountId(), request.getAmount(), request.getDescription()));
+            }
+        }
+        return ResponseEntity.ok(idempotencyService.execute("batch:" + principal.getName(), idempotencyKey,
+                IdempotencyService.digest(rows), () -> transactionService.createTransactions(requests)));
     }
 }
@@ -0,0 +1,26 @@
+package com.familynest.controller;
+
+import com.familynest.dto.TransferDto;
+import com.familynest.dto.TransferRequest;
+import com.familynest.service.FamilyUserDetails;
+import com.familynest.service.TransferService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/transfers")
+public class TransferController {
+
+    @Autowired
+    private TransferService transferService;
+
+    @PostMapping
+    @PreAuthorize("hasRole('PARENT')")
+    public ResponseEntity<TransferDto> transfer(@RequestBody TransferRequest request,
+                                                @AuthenticationPrincipal FamilyUserDetails caller) {
+        return ResponseEntity.ok(transferService.transfer(caller.getFamilyId(), request));
+    }
+}
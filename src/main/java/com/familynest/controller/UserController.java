@@ -0,0 +1,28 @@
+package com.familynest.controller;
+
+import com.familynest.dto.FamilyDto;
+import com.familynest.dto.UserDto;
+import com.familynest.service.FamilyUserDetails;
+import com.familynest.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/users")
+public class UserController {
+
+    @Autowired
+    private UserService userService;
+
+    @GetMapping("/{id}")
+    public ResponseEntity<UserDto> getUserById(@PathVariable Long id, @AuthenticationPrincipal FamilyUserDetails caller) {
+        return ResponseEntity.ok(userService.getUserById(caller.getFamilyId(), id));
+    }
+
+    @GetMapping("/{id}/family")
+    public ResponseEntity<FamilyDto> getFamily(@PathVariable Long id, @AuthenticationPrincipal FamilyUserDetails caller) {
+        return ResponseEntity.ok(userService.getFamily(caller.getFamilyId(), id));
+    }
+}
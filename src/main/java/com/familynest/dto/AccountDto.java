@@ -0,0 +1,45 @@
+package com.familynest.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.familynest.model.Account;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountDto {
+    private Long id;
+    private String name;
+    private BigDecimal balance;
+    private Long userId;
+    private Long parentId;
+    private boolean isParentAccount;
+    private LocalDateTime createdAt;
+
+    @JsonProperty("isParentAccount")
+    public boolean isParentAccount() {
+        return isParentAccount;
+    }
+
+    public static AccountDto fromEntity(Account account) {
+        AccountDto dto = new AccountDto();
+        dto.setId(account.getId());
+        dto.setName(account.getName());
+        dto.setBalance(account.getBalance());
+        dto.setUserId(account.getUser().getId());
+        dto.setParentId(account.getParentAccount() != null ? account.getParentAccount().getId() : null);
+        dto.setParentAccount(account.isParentAccount());
+        dto.setCreatedAt(account.getCreatedAt());
+        return dto;
+    }
+
+    public static AccountDto fromFamilyAccount(FamilyAccountDto account) {
+        return new AccountDto(account.getId(), account.getName(), account.getBalance(), account.getUserId(),
+                account.getParentId(), account.isParentAccount(), account.getCreatedAt());
+    }
+}
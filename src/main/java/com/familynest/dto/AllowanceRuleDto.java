@@ -0,0 +1,36 @@
+package com.familynest.dto;
+
+import com.familynest.model.AllowanceRule;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AllowanceRuleDto {
+    private Long id;
+    private Long fromAccountId;
+    private Long toAccountId;
+    private BigDecimal amount;
+    private AllowanceRule.Frequency frequency;
+    private LocalDateTime nextRunAt;
+    private LocalDateTime lastRunAt;
+    private boolean active;
+
+    public static AllowanceRuleDto fromEntity(AllowanceRule rule) {
+        AllowanceRuleDto dto = new AllowanceRuleDto();
+        dto.setId(rule.getId());
+        dto.setFromAccountId(rule.getFromAccount().getId());
+        dto.setToAccountId(rule.getToAccount().getId());
+        dto.setAmount(rule.getAmount());
+        dto.setFrequency(rule.getFrequency());
+        dto.setNextRunAt(rule.getNextRunAt());
+        dto.setLastRunAt(rule.getLastRunAt());
+        dto.setActive(rule.isActive());
+        return dto;
+    }
+}
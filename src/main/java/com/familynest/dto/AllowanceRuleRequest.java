@@ -0,0 +1,21 @@
+package com.familynest.dto;
+
+import com.familynest.model.AllowanceRule;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AllowanceRuleRequest {
+    private Long fromAccountId;
+    private Long toAccountId;
+    private BigDecimal amount;
+    private AllowanceRule.Frequency frequency;
+    // Optional; the first payment is due immediately when absent
+    private LocalDateTime firstRunAt;
+}
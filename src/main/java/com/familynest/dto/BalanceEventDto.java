@@ -0,0 +1,21 @@
+package com.familynest.dto;
+
+import com.familynest.model.Account;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceEventDto {
+    private Long accountId;
+    private Long userId;
+    private BigDecimal balance;
+
+    public static BalanceEventDto fromEntity(Account account) {
+        return new BalanceEventDto(account.getId(), account.getUser().getId(), account.getBalance());
+    }
+}
@@ -0,0 +1,26 @@
+package com.familynest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransactionResponse {
+    private int created;
+    private int rejected;
+    // One entry per rejected row; rows not listed here were created
+    private List<RowError> errors;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        // Zero-based position of the row in the request
+        private int index;
+        private String message;
+    }
+}
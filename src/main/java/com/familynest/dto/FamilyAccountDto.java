@@ -0,0 +1,34 @@
+package com.familynest.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.familynest.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Flat row for the family dashboard: one account plus the owner fields the dashboard shows.
+ * Built directly by the family-accounts JPQL constructor expression, so no entity graph is loaded.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FamilyAccountDto {
+    private Long id;
+    private String name;
+    private BigDecimal balance;
+    private boolean isParentAccount;
+    private Long userId;
+    private String username;
+    private User.Role role;
+    private Long parentId;
+    private LocalDateTime createdAt;
+
+    @JsonProperty("isParentAccount")
+    public boolean isParentAccount() {
+        return isParentAccount;
+    }
+}
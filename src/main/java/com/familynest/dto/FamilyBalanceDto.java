@@ -0,0 +1,21 @@
+package com.familynest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FamilyBalanceDto {
+    // The parent's user id
+    private Long familyId;
+    private BigDecimal total;
+    // Total per family member, keyed by user id
+    private Map<Long, BigDecimal> memberTotals;
+    // Running balance per account, keyed by account id
+    private Map<Long, BigDecimal> accountBalances;
+}
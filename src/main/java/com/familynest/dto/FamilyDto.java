@@ -0,0 +1,23 @@
+package com.familynest.dto;
+
+import com.familynest.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FamilyDto {
+    private UserDto user;
+    private List<UserDto> children;
+
+    public static FamilyDto fromEntity(User user, List<User> children) {
+        FamilyDto dto = new FamilyDto();
+        dto.setUser(UserDto.fromEntity(user));
+        dto.setChildren(children.stream().map(UserDto::fromEntity).toList());
+        return dto;
+    }
+}
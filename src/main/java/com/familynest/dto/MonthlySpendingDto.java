@@ -0,0 +1,21 @@
+package com.familynest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlySpendingDto {
+    private YearMonth month;
+    // Sum of positive amounts
+    private BigDecimal income;
+    // Sum of negative amounts, as a positive number
+    private BigDecimal spending;
+    private BigDecimal net;
+    private long count;
+}
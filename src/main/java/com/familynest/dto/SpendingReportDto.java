@@ -0,0 +1,35 @@
+package com.familynest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpendingReportDto {
+    private Long userId;
+    // Null for a report over all of the user's accounts
+    private Long accountId;
+    private YearMonth from;
+    private YearMonth to;
+    private BigDecimal income;
+    private BigDecimal spending;
+    private BigDecimal net;
+    private long count;
+    // Descriptions with the most spending in the range, largest first
+    private List<DescriptionTotal> topDescriptions;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DescriptionTotal {
+        private String description;
+        private BigDecimal spending;
+        private long count;
+    }
+}
@@ -0,0 +1,30 @@
+package com.familynest.dto;
+
+import com.familynest.model.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionDto {
+    private Long id;
+    private BigDecimal amount;
+    private String description;
+    private Long accountId;
+    private LocalDateTime createdAt;
+
+    public static TransactionDto fromEntity(Transaction transaction) {
+        TransactionDto dto = new TransactionDto();
+        dto.setId(transaction.getId());
+        dto.setAmount(transaction.getAmount());
+        dto.setDescription(transaction.getDescription());
+        dto.setAccountId(transaction.getAccount().getId());
+        dto.setCreatedAt(transaction.getCreatedAt());
+        return dto;
+    }
+}
@@ -0,0 +1,16 @@
+package com.familynest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionRequest {
+    private Long accountId;
+    private BigDecimal amount;
+    private String description;
+}
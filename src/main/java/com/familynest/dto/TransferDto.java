@@ -0,0 +1,15 @@
+package com.familynest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferDto {
+    // The negative row on the paying account
+    private TransactionDto debit;
+    // The positive row on the receiving account
+    private TransactionDto credit;
+}
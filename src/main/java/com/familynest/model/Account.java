@@ -1,6 +1,7 @@
 
 package com.familynest.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -28,11 +29,11 @@ public class Account {
     @Column(nullable = false)
     private BigDecimal balance;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_account_id")
     private Account parentAccount;
 
@@ -42,9 +43,22 @@ public class Account {
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
+    @Version
+    private Long version;
+
     @OneToMany(mappedBy = "account", cascade = CascadeType.ALL)
     private List<Transaction> transactions = new ArrayList<>();
 
+    // Lombok skips the accessors for isParentAccount because they collide with parentAccount's
+    @JsonProperty("isParentAccount")
+    public boolean isParentAccount() {
+        return isParentAccount;
+    }
+
+    public void setIsParentAccount(boolean isParentAccount) {
+        this.isParentAccount = isParentAccount;
+    }
+
     @PrePersist
     public void prePersist() {
         if (createdAt == null) {
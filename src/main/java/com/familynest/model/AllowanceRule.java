@@ -0,0 +1,89 @@
+package com.familynest.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+@Entity
+@Table(name = "allowance_rules", indexes = @Index(name = "idx_allowance_rules_next_run", columnList = "active, nextRunAt"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AllowanceRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // The parent's account the allowance is paid from
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "from_account_id", nullable = false)
+    private Account fromAccount;
+
+    // The child's account the allowance is paid into
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "to_account_id", nullable = false)
+    private Account toAccount;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Frequency frequency;
+
+    // Due time of the first payment; every due time is this plus a whole number of periods
+    @Column(nullable = false)
+    private LocalDateTime anchorAt;
+
+    // Due time of the next payment; advanced in the same commit that pays, so a payment is never repeated
+    @Column(nullable = false)
+    private LocalDateTime nextRunAt;
+
+    // Random id of the payment being made for nextRunAt, saved before its rows and written into their
+    // descriptions; cleared when the rule advances. Never exposed, so clients cannot write a matching row.
+    private String runId;
+
+    private LocalDateTime lastRunAt;
+
+    @Column(nullable = false)
+    private boolean active = true;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // Two scheduler nodes paying the same rule conflict here and one of them rolls back
+    @Version
+    private Long version;
+
+    @PrePersist
+    public void prePersist() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
+    public enum Frequency {
+        WEEKLY, MONTHLY;
+
+        /**
+         * The first due time after {@code time}. Counted from the anchor rather than from the previous
+         * due time, so a rule anchored on the 31st is paid on the last day of shorter months and on the
+         * 31st again after them.
+         */
+        public LocalDateTime firstAfter(LocalDateTime anchor, LocalDateTime time) {
+            ChronoUnit unit = this == WEEKLY ? ChronoUnit.WEEKS : ChronoUnit.MONTHS;
+            long periods = Math.max(0, unit.between(anchor, time));
+            LocalDateTime next = anchor.plus(periods, unit);
+            while (!next.isAfter(time)) {
+                next = anchor.plus(++periods, unit);
+            }
+            return next;
+        }
+    }
+}
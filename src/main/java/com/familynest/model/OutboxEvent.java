@@ -0,0 +1,54 @@
+package com.familynest.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A domain event waiting to be dispatched, written in the same commit as the change it describes.
+ * Holds plain ids and values rather than associations, so it describes the change as it was.
+ */
+@Entity
+@Table(name = "outbox_events")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Type type;
+
+    // The parent's user id
+    @Column(nullable = false)
+    private Long familyId;
+
+    private Long userId;
+
+    private Long accountId;
+
+    private Long transactionId;
+
+    // The transaction's amount, for TRANSACTION_CREATED
+    private BigDecimal amount;
+
+    // The account's balance after the change, for BALANCE_CHANGED and ACCOUNT_CREATED
+    private BigDecimal balance;
+
+    private String description;
+
+    @Column(nullable = false)
+    private LocalDateTime occurredAt;
+
+    public enum Type {
+        TRANSACTION_CREATED, BALANCE_CHANGED, ACCOUNT_CREATED, USER_REGISTERED
+    }
+}
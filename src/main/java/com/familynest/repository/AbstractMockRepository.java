@@ -0,0 +1,613 @@
+package com.familynest.repository;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.NotReadablePropertyException;
+import org.springframework.beans.NullValueInNestedPathException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+import java.util.stream.IntStream;
+
+/**
+ * Thread-safe in-memory backing store shared by the mock repositories.
+ * <p>
+ * Entities are kept in an {@link EntityStore} keyed by id, by default a {@link ConcurrentHashMap},
+ * and ids are handed out by an {@link AtomicLong}. Every write for an id is exclusive for that id,
+ * so subclasses can keep their secondary indexes in {@link #index} and {@link #unindex} and see
+ * writes to the same entity one at a time.
+ * <p>
+ * When a {@link MockJournal} is attached, every save and delete is also appended to it from inside
+ * the same exclusive section, so the journal sees writes to an entity in the order they were applied.
+ */
+public abstract class AbstractMockRepository<T> implements JpaRepository<T, Long> {
+
+    protected final EntityStore<T> store;
+    private final AtomicLong currentId = new AtomicLong(1L);
+    private volatile MockJournal journal;
+
+    protected AbstractMockRepository() {
+        this(new MapStore<>());
+    }
+
+    protected AbstractMockRepository(EntityStore<T> store) {
+        this.store = store;
+    }
+
+    protected abstract Long getId(T entity);
+
+    protected abstract void setId(T entity, Long id);
+
+    /**
+     * Tag of this repository's records in the journal. Must never change once data has been written,
+     * and repositories whose entities reference others must use a higher tag than the ones they reference.
+     */
+    protected abstract byte journalType();
+
+    /**
+     * Writes every persistent field except the id; associations are written as the referenced ids.
+     */
+    protected abstract void writeEntity(DataOutput out, T entity) throws IOException;
+
+    /**
+     * Reads back what {@link #writeEntity} wrote, resolving associations against the other repositories.
+     */
+    protected abstract T readEntity(Long id, DataInput in) throws IOException;
+
+    /**
+     * Writes the entities, sorted by id, as this repository's snapshot section. The default stores each
+     * entity's journal encoding; repositories with many rows override it with typed columns.
+     */
+    protected void writeSnapshot(SnapshotWriter out, List<T> entities) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        out.writeLongs(entities.size(), i -> getId(entities.get(i)));
+        out.writeBlobs(entities.size(), i -> {
+            bytes.reset();
+            try {
+                writeEntity(data, entities.get(i));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        });
+    }
+
+    /**
+     * Decodes the section written by {@link #writeSnapshot}. Runs concurrently with the other
+     * repositories' sections, so it must not resolve associations; that belongs in the returned rows.
+     */
+    protected SnapshotRows<T> readSnapshot(SnapshotReader in) throws IOException {
+        long[] ids = in.readLongs();
+        byte[][] blobs = in.readBlobs();
+        return new SnapshotRows<>(ids.length, false, i -> {
+            try {
+                return readEntity(ids[i], new DataInputStream(new ByteArrayInputStream(blobs[i])));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Decoded snapshot rows, materialized one at a time while restoring. Rows are restored in id order
+     * unless {@code parallel} is set, which is only safe when rows never reference rows of the same type.
+     */
+    protected record SnapshotRows<T>(int size, boolean parallel, IntFunction<T> row) {
+    }
+
+    interface SnapshotSection {
+        void write(SnapshotWriter out) throws IOException;
+    }
+
+    /**
+     * Where a repository keeps its entities. Writes to one id are exclusive: {@code whileLocked} runs
+     * with other writes to the id excluded, and if it throws the write is abandoned.
+     */
+    protected interface EntityStore<T> {
+        T get(Long id);
+
+        boolean contains(Long id);
+
+        int size();
+
+        void put(Long id, T entity, Runnable whileLocked);
+
+        // Returns false, without running whileLocked, when there is nothing stored under the id
+        boolean remove(Long id, Runnable whileLocked);
+
+        List<Long> ids();
+
+        // A fresh, modifiable list of the stored entities in no particular order
+        List<T> values();
+    }
+
+    private static final class MapStore<T> implements EntityStore<T> {
+        private final ConcurrentMap<Long, T> map = new ConcurrentHashMap<>();
+
+        @Override
+        public T get(Long id) {
+            return map.get(id);
+        }
+
+        @Override
+        public boolean contains(Long id) {
+            return map.containsKey(id);
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public void put(Long id, T entity, Runnable whileLocked) {
+            map.compute(id, (key, existing) -> {
+                whileLocked.run();
+                return entity;
+            });
+        }
+
+        @Override
+        public boolean remove(Long id, Runnable whileLocked) {
+            boolean[] removed = new boolean[1];
+            map.computeIfPresent(id, (key, existing) -> {
+                whileLocked.run();
+                removed[0] = true;
+                return null;
+            });
+            return removed[0];
+        }
+
+        @Override
+        public List<Long> ids() {
+            return new ArrayList<>(map.keySet());
+        }
+
+        @Override
+        public List<T> values() {
+            return new ArrayList<>(map.values());
+        }
+    }
+
+    /**
+     * Called once for an entity that is saved without an id, after the id is assigned.
+     */
+    protected void onCreate(T entity) {
+    }
+
+    /**
+     * Brings the secondary indexes in line with the entity, replacing whatever was indexed for its id
+     * before. Called while the id's slot is locked; throwing leaves the stored entity untouched.
+     */
+    protected void index(T entity) {
+    }
+
+    /**
+     * Removes the entity with the given id from the secondary indexes. Called while the id's slot is locked.
+     */
+    protected void unindex(Long id) {
+    }
+
+    protected long nextId() {
+        return currentId.getAndIncrement();
+    }
+
+    protected static <K> void addToIndex(ConcurrentMap<K, NavigableSet<Long>> index, K key, Long id) {
+        if (key == null) {
+            return;
+        }
+        index.compute(key, (k, ids) -> {
+            NavigableSet<Long> result = ids != null ? ids : new ConcurrentSkipListSet<>();
+            result.add(id);
+            return result;
+        });
+    }
+
+    protected static <K> void removeFromIndex(ConcurrentMap<K, NavigableSet<Long>> index, K key, Long id) {
+        if (key == null) {
+            return;
+        }
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    void attachJournal(MockJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Takes the state of an entity read back from the journal for an id that is already stored, and
+     * returns the instance to store. The default stores the new instance; repositories whose entities
+     * are referenced by other entities copy the state into {@code existing} instead, so the references
+     * restored earlier keep pointing at the live object.
+     */
+    protected T mergeRestored(T existing, T restored) {
+        return restored;
+    }
+
+    // Replay of a journaled save: stores the entity as read, without assigning ids or journaling again
+    void restore(Long id, DataInput in) throws IOException {
+        T restored = readEntity(id, in);
+        T existing = store.get(id);
+        restoreEntity(existing != null ? mergeRestored(existing, restored) : restored);
+        idsRestoredUpTo(id);
+    }
+
+    /**
+     * Captures the contents for a snapshot section. Called while journaled writes are blocked, so it
+     * must be quick; the returned section is written afterwards, concurrently with new writes.
+     */
+    SnapshotSection captureSnapshot() {
+        List<T> entities = store.values();
+        return out -> {
+            entities.sort(Comparator.comparing(this::getId));
+            writeSnapshot(out, entities);
+        };
+    }
+
+    // Decodes this repository's snapshot sections; the returned task restores the rows and returns how many
+    IntSupplier loadSnapshot(List<SnapshotReader> sections) throws IOException {
+        List<IntSupplier> restores = new ArrayList<>();
+        for (SnapshotReader in : sections) {
+            restores.add(loadSection(in));
+        }
+        return () -> restores.stream().mapToInt(IntSupplier::getAsInt).sum();
+    }
+
+    private IntSupplier loadSection(SnapshotReader in) throws IOException {
+        SnapshotRows<T> rows = readSnapshot(in);
+        return () -> {
+            IntStream range = IntStream.range(0, rows.size());
+            long maxId = (rows.parallel() ? range.parallel() : range)
+                    .mapToLong(i -> restoreEntity(rows.row().apply(i)))
+                    .max()
+                    .orElse(0L);
+            idsRestoredUpTo(maxId);
+            return rows.size();
+        };
+    }
+
+    // Makes sure ids handed out from now on come after a restored id
+    void idsRestoredUpTo(long id) {
+        currentId.accumulateAndGet(id + 1, Math::max);
+    }
+
+    private long restoreEntity(T entity) {
+        Long id = getId(entity);
+        store.put(id, entity, () -> index(entity));
+        return id;
+    }
+
+    void restoreDelete(Long id) {
+        store.remove(id, () -> unindex(id));
+    }
+
+    // Drops everything, including seed data, before state is restored from the journal
+    void clearForRestore() {
+        for (Long id : store.ids()) {
+            restoreDelete(id);
+        }
+        currentId.set(1L);
+    }
+
+    protected List<T> findAllByIds(NavigableSet<Long> ids) {
+        List<T> result = new ArrayList<>();
+        if (ids != null) {
+            for (Long id : ids) {
+                T entity = store.get(id);
+                if (entity != null) {
+                    result.add(entity);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public <S extends T> S save(S entity) {
+        boolean created = getId(entity) == null;
+        if (created) {
+            setId(entity, nextId());
+            onCreate(entity);
+        }
+        MockJournal journal = this.journal;
+        if (journal == null) {
+            try {
+                store.put(getId(entity), entity, () -> index(entity));
+            } catch (RuntimeException e) {
+                if (created) {
+                    setId(entity, null);
+                }
+                throw e;
+            }
+            return entity;
+        }
+
+        long sequence;
+        journal.beginWrite();
+        try {
+            byte[] record = journal.encodeSave(this, entity);
+            long[] appended = new long[1];
+            store.put(getId(entity), entity, () -> {
+                index(entity);
+                appended[0] = journal.append(record);
+            });
+            sequence = appended[0];
+        } catch (RuntimeException e) {
+            if (created) {
+                setId(entity, null);
+            }
+            throw e;
+        } finally {
+            journal.endWrite();
+        }
+        journal.awaitDurable(sequence);
+        return entity;
+    }
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> result = new ArrayList<>();
+        for (S entity : entities) {
+            result.add(save(entity));
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<T> findById(Long id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(store.get(id));
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return id != null && store.contains(id);
+    }
+
+    @Override
+    public List<T> findAll() {
+        List<T> result = store.values();
+        result.sort(Comparator.comparing(this::getId));
+        return result;
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<Long> ids) {
+        List<T> result = new ArrayList<>();
+        for (Long id : ids) {
+            findById(id).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    @Override
+    public long count() {
+        return store.size();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        MockJournal journal = this.journal;
+        if (journal == null) {
+            store.remove(id, () -> unindex(id));
+            return;
+        }
+
+        long[] appended = new long[1];
+        journal.beginWrite();
+        try {
+            store.remove(id, () -> {
+                unindex(id);
+                appended[0] = journal.append(journal.encodeDelete(this, id));
+            });
+        } finally {
+            journal.endWrite();
+        }
+        journal.awaitDurable(appended[0]);
+    }
+
+    @Override
+    public void delete(T entity) {
+        if (getId(entity) != null) {
+            deleteById(getId(entity));
+        }
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        for (Long id : ids) {
+            deleteById(id);
+        }
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        for (T entity : entities) {
+            delete(entity);
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        for (Long id : store.ids()) {
+            deleteById(id);
+        }
+    }
+
+    @Override
+    public List<T> findAll(Sort sort) {
+        List<T> result = findAll();
+        if (sort.isSorted()) {
+            // Stable, so rows that compare equal stay in id order
+            result.sort(comparator(sort));
+        }
+        return result;
+    }
+
+    // Compares by the sort's properties, which may be nested paths such as "user.username"
+    private Comparator<T> comparator(Sort sort) {
+        Comparator<T> result = null;
+        for (Sort.Order order : sort) {
+            Comparator<Object> values = order.isIgnoreCase()
+                    ? Comparator.comparing(AbstractMockRepository::lowerCase, AbstractMockRepository::compareValues)
+                    : AbstractMockRepository::compareValues;
+            if (order.isDescending()) {
+                values = values.reversed();
+            }
+            // Nulls come last unless the order asks otherwise, as in most databases
+            values = order.getNullHandling() == Sort.NullHandling.NULLS_FIRST
+                    ? Comparator.nullsFirst(values)
+                    : Comparator.nullsLast(values);
+            Comparator<T> byProperty = Comparator.comparing(entity -> propertyValue(entity, order.getProperty()), values);
+            result = result == null ? byProperty : result.thenComparing(byProperty);
+        }
+        return result;
+    }
+
+    private static Object propertyValue(Object entity, String property) {
+        BeanWrapper bean = new BeanWrapperImpl(entity);
+        try {
+            return bean.getPropertyValue(property);
+        } catch (NullValueInNestedPathException e) {
+            // A null association on the path sorts like a null value
+            return null;
+        } catch (NotReadablePropertyException e) {
+            throw new InvalidDataAccessApiUsageException("No sortable property '" + property + "' on "
+                    + entity.getClass().getSimpleName(), e);
+        }
+    }
+
+    // Case is only ignored for text, as a database would
+    private static Object lowerCase(Object value) {
+        return value instanceof String text ? text.toLowerCase(Locale.ROOT) : value;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object left, Object right) {
+        if (left instanceof Comparable comparable) {
+            return comparable.compareTo(right);
+        }
+        throw new InvalidDataAccessApiUsageException("Cannot sort by values of type " + left.getClass().getSimpleName());
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        List<T> all = findAll(pageable.getSort());
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(all);
+        }
+        int from = (int) Math.min(pageable.getOffset(), all.size());
+        int to = Math.min(from + pageable.getPageSize(), all.size());
+        return new PageImpl<>(all.subList(from, to), pageable, all.size());
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public <S extends T> S saveAndFlush(S entity) {
+        return save(entity);
+    }
+
+    @Override
+    public <S extends T> List<S> saveAllAndFlush(Iterable<S> entities) {
+        return saveAll(entities);
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<T> entities) {
+        deleteAll(entities);
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+        deleteAllById(ids);
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        deleteAll();
+    }
+
+    @Override
+    public T getOne(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    public T getById(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    public T getReferenceById(Long id) {
+        return findById(id).orElseThrow(() -> new EntityNotFoundException("No entity with id " + id));
+    }
+
+    @Override
+    public <S extends T> Optional<S> findOne(Example<S> example) {
+        throw new UnsupportedOperationException("Query by example is not supported by the in-memory repository");
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example) {
+        throw new UnsupportedOperationException("Query by example is not supported by the in-memory repository");
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
+        throw new UnsupportedOperationException("Query by example is not supported by the in-memory repository");
+    }
+
+    @Override
+    public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw new UnsupportedOperationException("Query by example is not supported by the in-memory repository");
+    }
+
+    @Override
+    public <S extends T> long count(Example<S> example) {
+        throw new UnsupportedOperationException("Query by example is not supported by the in-memory repository");
+    }
+
+    @Override
+    public <S extends T> boolean exists(Example<S> example) {
+        throw new UnsupportedOperationException("Query by example is not supported by the in-memory repository");
+    }
+
+    @Override
+    public <S extends T, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw new UnsupportedOperationException("Query by example is not supported by the in-memory repository");
+    }
+}
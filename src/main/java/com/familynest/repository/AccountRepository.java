@@ -1,9 +1,12 @@
 
 package com.familynest.repository;
 
+import com.familynest.dto.FamilyAccountDto;
 import com.familynest.model.Account;
 import com.familynest.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,4 +15,12 @@ import java.util.List;
 public interface AccountRepository extends JpaRepository<Account, Long> {
     List<Account> findByUser(User user);
     List<Account> findByUserOrUserParent(User user, User parent);
+
+    // Accounts owned by the user or by the user's children, as dashboard rows in a single query
+    @Query("SELECT new com.familynest.dto.FamilyAccountDto(a.id, a.name, a.balance, a.isParentAccount,"
+            + " u.id, u.username, u.role, pa.id, a.createdAt)"
+            + " FROM Account a JOIN a.user u LEFT JOIN u.parent p LEFT JOIN a.parentAccount pa"
+            + " WHERE u.id = :userId OR p.id = :userId"
+            + " ORDER BY a.id")
+    List<FamilyAccountDto> findFamilyAccounts(@Param("userId") Long userId);
 }
@@ -0,0 +1,14 @@
+package com.familynest.repository;
+
+import com.familynest.model.Account;
+import com.familynest.model.AllowanceRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AllowanceRuleRepository extends JpaRepository<AllowanceRule, Long> {
+    List<AllowanceRule> findByActiveTrue();
+    List<AllowanceRule> findByFromAccountOrToAccount(Account fromAccount, Account toAccount);
+}
@@ -1,63 +1,227 @@
-
 package com.familynest.repository;
 
+import com.familynest.dto.FamilyAccountDto;
 import com.familynest.model.Account;
 import com.familynest.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Repository;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @Repository
 @Primary
-public class MockAccountRepository implements AccountRepository {
-    private List<Account> accounts;
-    private Long currentId = 1L;
+public class MockAccountRepository extends AbstractMockRepository<Account> implements AccountRepository {
+    private final ConcurrentMap<Long, NavigableSet<Long>> accountsByUser = new ConcurrentHashMap<>();
+    // Accounts owned by the children of a parent, keyed by the parent's user id
+    private final ConcurrentMap<Long, NavigableSet<Long>> accountsByParentUser = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, IndexKeys> indexedKeys = new ConcurrentHashMap<>();
+
+    @Autowired
+    private UserRepository userRepository;
 
-    public MockAccountRepository() {
-        accounts = new ArrayList<>();
+    @Override
+    protected Long getId(Account account) {
+        return account.getId();
     }
 
     @Override
-    public List<Account> findByUser(User user) {
-        return accounts.stream()
-                .filter(account -> account.getUser().getId().equals(user.getId()))
-                .collect(Collectors.toList());
+    protected void setId(Account account, Long id) {
+        account.setId(id);
     }
 
     @Override
-    public List<Account> findByUserOrUserParent(User user, User parent) {
-        return accounts.stream()
-                .filter(account -> 
-                    account.getUser().getId().equals(user.getId()) || 
-                    (account.getUser().getParent() != null && 
-                     account.getUser().getParent().getId().equals(parent.getId())))
-                .collect(Collectors.toList());
+    protected byte journalType() {
+        return 2;
     }
 
     @Override
-    public Optional<Account> findById(Long id) {
-        return accounts.stream()
-                .filter(account -> account.getId().equals(id))
-                .findFirst();
+    protected void writeEntity(DataOutput out, Account account) throws IOException {
+        MockJournal.writeString(out, account.getName());
+        MockJournal.writeDecimal(out, account.getBalance());
+        MockJournal.writeId(out, account.getUser() != null ? account.getUser().getId() : null);
+        MockJournal.writeId(out, account.getParentAccount() != null ? account.getParentAccount().getId() : null);
+        out.writeBoolean(account.isParentAccount());
+        MockJournal.writeTime(out, account.getCreatedAt());
+        MockJournal.writeId(out, account.getVersion());
     }
 
     @Override
-    public Account save(Account account) {
-        if (account.getId() == null) {
-            account.setId(currentId++);
-            account.setCreatedAt(LocalDateTime.now());
-            if (account.getBalance() == null) {
-                account.setBalance(BigDecimal.ZERO);
+    protected void writeSnapshot(SnapshotWriter out, List<Account> accounts) throws IOException {
+        out.writeLongs(accounts.size(), i -> accounts.get(i).getId());
+        out.writeDictionary(accounts.size(), i -> accounts.get(i).getName());
+        out.writeDecimals(accounts.size(), i -> accounts.get(i).getBalance());
+        out.writeLongs(accounts.size(), i -> accounts.get(i).getUser() != null ? accounts.get(i).getUser().getId() : 0L);
+        out.writeLongs(accounts.size(), i -> accounts.get(i).getParentAccount() != null ? accounts.get(i).getParentAccount().getId() : 0L);
+        out.writeBytes(accounts.size(), i -> accounts.get(i).isParentAccount() ? 1 : 0);
+        out.writeTimes(accounts.size(), i -> accounts.get(i).getCreatedAt());
+        out.writeLongs(accounts.size(), i -> accounts.get(i).getVersion() != null ? accounts.get(i).getVersion() : Long.MIN_VALUE);
+    }
+
+    @Override
+    protected SnapshotRows<Account> readSnapshot(SnapshotReader in) {
+        long[] ids = in.readLongs();
+        String[] names = in.readDictionary();
+        SnapshotReader.DecimalColumn balances = in.readDecimals();
+        long[] userIds = in.readLongs();
+        long[] parentAccountIds = in.readLongs();
+        byte[] parentFlags = in.readBytes();
+        SnapshotReader.TimeColumn createdAt = in.readTimes();
+        long[] versions = in.readLongs();
+        // In id order: a parent account is always restored before the child accounts linked to it
+        return new SnapshotRows<>(ids.length, false, i -> {
+            Account account = new Account();
+            account.setId(ids[i]);
+            account.setName(names[i]);
+            account.setBalance(balances.get(i));
+            if (userIds[i] != 0L) {
+                account.setUser(userRepository.findById(userIds[i])
+                        .orElseThrow(() -> new IllegalStateException("Snapshot references unknown user " + userIds[i])));
+            }
+            if (parentAccountIds[i] != 0L) {
+                account.setParentAccount(findById(parentAccountIds[i])
+                        .orElseThrow(() -> new IllegalStateException("Snapshot references unknown account " + parentAccountIds[i])));
             }
+            account.setIsParentAccount(parentFlags[i] != 0);
+            account.setCreatedAt(createdAt.get(i));
+            account.setVersion(versions[i] != Long.MIN_VALUE ? versions[i] : null);
+            return account;
+        });
+    }
+
+    @Override
+    protected Account readEntity(Long id, DataInput in) throws IOException {
+        Account account = new Account();
+        account.setId(id);
+        account.setName(MockJournal.readString(in));
+        account.setBalance(MockJournal.readDecimal(in));
+        Long userId = MockJournal.readId(in);
+        if (userId != null) {
+            account.setUser(userRepository.findById(userId)
+                    .orElseThrow(() -> new IOException("Journal references unknown user " + userId)));
+        }
+        Long parentAccountId = MockJournal.readId(in);
+        if (parentAccountId != null) {
+            account.setParentAccount(findById(parentAccountId)
+                    .orElseThrow(() -> new IOException("Journal references unknown account " + parentAccountId)));
         }
-        accounts.removeIf(existingAccount -> existingAccount.getId().equals(account.getId()));
-        accounts.add(account);
+        account.setIsParentAccount(in.readBoolean());
+        account.setCreatedAt(MockJournal.readTime(in));
+        account.setVersion(MockJournal.readId(in));
         return account;
     }
+
+    // Child accounts and transactions hold on to the stored instance, so a replayed save updates it in place
+    @Override
+    protected Account mergeRestored(Account existing, Account restored) {
+        existing.setName(restored.getName());
+        existing.setBalance(restored.getBalance());
+        existing.setUser(restored.getUser());
+        existing.setParentAccount(restored.getParentAccount());
+        existing.setIsParentAccount(restored.isParentAccount());
+        existing.setCreatedAt(restored.getCreatedAt());
+        existing.setVersion(restored.getVersion());
+        return existing;
+    }
+
+    @Override
+    protected void onCreate(Account account) {
+        account.setCreatedAt(LocalDateTime.now());
+        if (account.getBalance() == null) {
+            account.setBalance(BigDecimal.ZERO);
+        }
+    }
+
+    @Override
+    protected void index(Account account) {
+        Long id = account.getId();
+        IndexKeys keys = IndexKeys.of(account);
+        IndexKeys previous = indexedKeys.put(id, keys);
+        if (previous == null) {
+            previous = IndexKeys.NONE;
+        }
+        if (!Objects.equals(keys.userId(), previous.userId())) {
+            removeFromIndex(accountsByUser, previous.userId(), id);
+            addToIndex(accountsByUser, keys.userId(), id);
+        }
+        if (!Objects.equals(keys.parentUserId(), previous.parentUserId())) {
+            removeFromIndex(accountsByParentUser, previous.parentUserId(), id);
+            addToIndex(accountsByParentUser, keys.parentUserId(), id);
+        }
+    }
+
+    @Override
+    protected void unindex(Long id) {
+        IndexKeys previous = indexedKeys.remove(id);
+        if (previous != null) {
+            removeFromIndex(accountsByUser, previous.userId(), id);
+            removeFromIndex(accountsByParentUser, previous.parentUserId(), id);
+        }
+    }
+
+    @Override
+    public List<Account> findByUser(User user) {
+        return findAllByIds(accountsByUser.get(user.getId()));
+    }
+
+    @Override
+    public List<Account> findByUserOrUserParent(User user, User parent) {
+        NavigableSet<Long> ids = new TreeSet<>();
+        NavigableSet<Long> own = accountsByUser.get(user.getId());
+        if (own != null) {
+            ids.addAll(own);
+        }
+        NavigableSet<Long> children = parent != null ? accountsByParentUser.get(parent.getId()) : null;
+        if (children != null) {
+            ids.addAll(children);
+        }
+        return findAllByIds(ids);
+    }
+
+    @Override
+    public List<FamilyAccountDto> findFamilyAccounts(Long userId) {
+        NavigableSet<Long> ids = new TreeSet<>();
+        NavigableSet<Long> own = accountsByUser.get(userId);
+        if (own != null) {
+            ids.addAll(own);
+        }
+        NavigableSet<Long> children = accountsByParentUser.get(userId);
+        if (children != null) {
+            ids.addAll(children);
+        }
+        return findAllByIds(ids).stream()
+                .map(account -> new FamilyAccountDto(
+                        account.getId(),
+                        account.getName(),
+                        account.getBalance(),
+                        account.isParentAccount(),
+                        account.getUser().getId(),
+                        account.getUser().getUsername(),
+                        account.getUser().getRole(),
+                        account.getParentAccount() != null ? account.getParentAccount().getId() : null,
+                        account.getCreatedAt()))
+                .toList();
+    }
+
+    private record IndexKeys(Long userId, Long parentUserId) {
+        static final IndexKeys NONE = new IndexKeys(null, null);
+
+        static IndexKeys of(Account account) {
+            User user = account.getUser();
+            if (user == null) {
+                return NONE;
+            }
+            return new IndexKeys(user.getId(), user.getParent() != null ? user.getParent().getId() : null);
+        }
+    }
 }
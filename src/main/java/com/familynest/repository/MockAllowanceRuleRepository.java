@@ -0,0 +1,132 @@
+package com.familynest.repository;
+
+import com.familynest.model.Account;
+import com.familynest.model.AllowanceRule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Repository
+@Primary
+public class MockAllowanceRuleRepository extends AbstractMockRepository<AllowanceRule> implements AllowanceRuleRepository {
+    // Rules touching an account, as payer or payee
+    private final ConcurrentMap<Long, NavigableSet<Long>> rulesByAccount = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, IndexKeys> indexedKeys = new ConcurrentHashMap<>();
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Override
+    protected Long getId(AllowanceRule rule) {
+        return rule.getId();
+    }
+
+    @Override
+    protected void setId(AllowanceRule rule, Long id) {
+        rule.setId(id);
+    }
+
+    @Override
+    protected byte journalType() {
+        return 4;
+    }
+
+    @Override
+    protected void writeEntity(DataOutput out, AllowanceRule rule) throws IOException {
+        MockJournal.writeId(out, rule.getFromAccount().getId());
+        MockJournal.writeId(out, rule.getToAccount().getId());
+        MockJournal.writeDecimal(out, rule.getAmount());
+        out.writeByte(rule.getFrequency().ordinal());
+        MockJournal.writeTime(out, rule.getAnchorAt());
+        MockJournal.writeTime(out, rule.getNextRunAt());
+        MockJournal.writeString(out, rule.getRunId());
+        MockJournal.writeTime(out, rule.getLastRunAt());
+        out.writeBoolean(rule.isActive());
+        MockJournal.writeTime(out, rule.getCreatedAt());
+        MockJournal.writeId(out, rule.getVersion());
+    }
+
+    @Override
+    protected AllowanceRule readEntity(Long id, DataInput in) throws IOException {
+        AllowanceRule rule = new AllowanceRule();
+        rule.setId(id);
+        rule.setFromAccount(account(MockJournal.readId(in)));
+        rule.setToAccount(account(MockJournal.readId(in)));
+        rule.setAmount(MockJournal.readDecimal(in));
+        rule.setFrequency(AllowanceRule.Frequency.values()[in.readByte()]);
+        rule.setAnchorAt(MockJournal.readTime(in));
+        rule.setNextRunAt(MockJournal.readTime(in));
+        rule.setRunId(MockJournal.readString(in));
+        rule.setLastRunAt(MockJournal.readTime(in));
+        rule.setActive(in.readBoolean());
+        rule.setCreatedAt(MockJournal.readTime(in));
+        rule.setVersion(MockJournal.readId(in));
+        return rule;
+    }
+
+    private Account account(Long id) throws IOException {
+        return accountRepository.findById(id)
+                .orElseThrow(() -> new IOException("Journal references unknown account " + id));
+    }
+
+    @Override
+    protected void onCreate(AllowanceRule rule) {
+        rule.setCreatedAt(LocalDateTime.now());
+    }
+
+    @Override
+    protected void index(AllowanceRule rule) {
+        Long id = rule.getId();
+        IndexKeys keys = new IndexKeys(rule.getFromAccount().getId(), rule.getToAccount().getId());
+        IndexKeys previous = indexedKeys.put(id, keys);
+        if (previous != null && !previous.equals(keys)) {
+            removeFromIndex(rulesByAccount, previous.fromAccountId(), id);
+            removeFromIndex(rulesByAccount, previous.toAccountId(), id);
+        }
+        addToIndex(rulesByAccount, keys.fromAccountId(), id);
+        addToIndex(rulesByAccount, keys.toAccountId(), id);
+    }
+
+    @Override
+    protected void unindex(Long id) {
+        IndexKeys previous = indexedKeys.remove(id);
+        if (previous != null) {
+            removeFromIndex(rulesByAccount, previous.fromAccountId(), id);
+            removeFromIndex(rulesByAccount, previous.toAccountId(), id);
+        }
+    }
+
+    @Override
+    public List<AllowanceRule> findByActiveTrue() {
+        return store.values().stream()
+                .filter(AllowanceRule::isActive)
+                .toList();
+    }
+
+    @Override
+    public List<AllowanceRule> findByFromAccountOrToAccount(Account fromAccount, Account toAccount) {
+        NavigableSet<Long> ids = new TreeSet<>();
+        NavigableSet<Long> from = rulesByAccount.get(fromAccount.getId());
+        if (from != null) {
+            ids.addAll(from);
+        }
+        NavigableSet<Long> to = rulesByAccount.get(toAccount.getId());
+        if (to != null) {
+            ids.addAll(to);
+        }
+        return findAllByIds(ids);
+    }
+
+    private record IndexKeys(Long fromAccountId, Long toAccountId) {
+    }
+}
@@ -0,0 +1,586 @@
+package com.familynest.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal that makes the in-memory repositories survive restarts.
+ * <p>
+ * Every save and delete is encoded as a compact binary record ({@code [length][crc32][type][op][id][fields]})
+ * and copied into an in-memory buffer; a single flusher thread writes whatever has accumulated to the
+ * current segment file and fsyncs once per batch (group commit). Writers only wait for that fsync when
+ * {@code app.journal.sync-writes} is on; otherwise a save costs a few microseconds and a crash can lose
+ * the last batch.
+ * <p>
+ * Once a segment grows past {@code app.journal.snapshot-threshold-bytes}, the journal briefly blocks
+ * writers, switches to a new segment and captures the stores, then writes them to a columnar snapshot
+ * ({@link SnapshotWriter}) in the background and deletes the older files. On startup the latest snapshot is loaded and the segments
+ * written after it are replayed; a torn record at the end of a segment ends that segment's replay.
+ */
+@Component
+@ConditionalOnProperty(name = "app.journal.enabled", havingValue = "true")
+public class MockJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(MockJournal.class);
+
+    private static final byte OP_SAVE = 1;
+    private static final byte OP_DELETE = 2;
+    private static final int HEADER_BYTES = 8;
+    private static final Pattern FILE_NAME = Pattern.compile("(journal|snapshot)-(\\d+)\\.(log|bin)");
+
+    private static final ThreadLocal<Encoder> ENCODER = ThreadLocal.withInitial(Encoder::new);
+
+    private final List<AbstractMockRepository<?>> repositories;
+    private final Map<Byte, AbstractMockRepository<?>> repositoriesByType = new TreeMap<>();
+    private final Path directory;
+    private final boolean syncWrites;
+    private final long snapshotThresholdBytes;
+
+    // Shared by every journaled write, exclusive while a snapshot switches segments, so the captured
+    // state and the start of the new segment line up
+    private final ReentrantReadWriteLock rotationLock = new ReentrantReadWriteLock();
+    // Guards the pending buffer and the sequence counter; writers hold it only to copy their record in
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Condition recordsPending = appendLock.newCondition();
+    // Held by whoever writes to the segment file
+    private final ReentrantLock ioLock = new ReentrantLock();
+    // Writers waiting for their records to be fsynced; a lock rather than a monitor so waiting never pins a virtual thread
+    private final ReentrantLock durableLock = new ReentrantLock();
+    private final Condition recordsDurable = durableLock.newCondition();
+
+    private RecordBuffer pending = new RecordBuffer();
+    private RecordBuffer spare = new RecordBuffer();
+    private long appendedSequence;
+    private volatile long durableSequence;
+
+    private FileChannel segment;
+    private long generation;
+    private long segmentBytes;
+
+    private final AtomicBoolean snapshotRunning = new AtomicBoolean();
+    private final ExecutorService snapshotExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "journal-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Thread flusher;
+    private volatile boolean running;
+
+    public MockJournal(
+            List<AbstractMockRepository<?>> repositories,
+            @Value("${app.journal.dir:data/journal}") String directory,
+            @Value("${app.journal.sync-writes:false}") boolean syncWrites,
+            @Value("${app.journal.snapshot-threshold-bytes:67108864}") long snapshotThresholdBytes) {
+        this.repositories = repositories.stream()
+                .sorted(Comparator.comparingInt(AbstractMockRepository::journalType))
+                .toList();
+        for (AbstractMockRepository<?> repository : this.repositories) {
+            if (repositoriesByType.put(repository.journalType(), repository) != null) {
+                throw new IllegalStateException("Duplicate journal type " + repository.journalType());
+            }
+        }
+        this.directory = Paths.get(directory);
+        this.syncWrites = syncWrites;
+        this.snapshotThresholdBytes = snapshotThresholdBytes;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        TreeMap<Long, Path> snapshots = new TreeMap<>();
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    (matcher.group(1).equals("snapshot") ? snapshots : segments).put(Long.parseLong(matcher.group(2)), file);
+                }
+            });
+        }
+
+        boolean recovered = !snapshots.isEmpty() || !segments.isEmpty();
+        long records = 0;
+        if (recovered) {
+            repositories.forEach(AbstractMockRepository::clearForRestore);
+            long from = 0;
+            if (!snapshots.isEmpty()) {
+                from = snapshots.lastKey();
+                records += loadSnapshot(snapshots.lastEntry().getValue());
+            }
+            for (Path file : segments.tailMap(from, true).values()) {
+                records += replay(file);
+            }
+        }
+
+        long lastGeneration = Math.max(
+                snapshots.isEmpty() ? 0 : snapshots.lastKey(),
+                segments.isEmpty() ? 0 : segments.lastKey());
+        generation = lastGeneration + 1;
+        segment = openSegment(generation);
+        running = true;
+        repositories.forEach(repository -> repository.attachJournal(this));
+        flusher = new Thread(this::flushLoop, "journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+
+        if (!recovered) {
+            // Nothing on disk yet: persist the seed data
+            snapshot();
+        }
+        log.info("Journal opened in {} at generation {} ({} records replayed)", directory, generation, records);
+    }
+
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        running = false;
+        repositories.forEach(repository -> repository.attachJournal(null));
+        snapshotExecutor.shutdown();
+        snapshotExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        appendLock.lock();
+        try {
+            recordsPending.signal();
+        } finally {
+            appendLock.unlock();
+        }
+        flusher.join();
+        ioLock.lock();
+        try {
+            flushPending();
+            segment.close();
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    void beginWrite() {
+        rotationLock.readLock().lock();
+    }
+
+    void endWrite() {
+        rotationLock.readLock().unlock();
+    }
+
+    <T> byte[] encodeSave(AbstractMockRepository<T> repository, T entity) {
+        Encoder encoder = ENCODER.get();
+        try {
+            encoder.begin(repository.journalType(), OP_SAVE, repository.getId(entity));
+            repository.writeEntity(encoder.out, entity);
+            return encoder.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    byte[] encodeDelete(AbstractMockRepository<?> repository, Long id) {
+        Encoder encoder = ENCODER.get();
+        try {
+            encoder.begin(repository.journalType(), OP_DELETE, id);
+            return encoder.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Queues an encoded record and returns its sequence number; never blocks on I/O
+    long append(byte[] record) {
+        appendLock.lock();
+        try {
+            pending.write(record, 0, record.length);
+            recordsPending.signal();
+            return ++appendedSequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    void awaitDurable(long sequence) {
+        if (!syncWrites || durableSequence >= sequence) {
+            return;
+        }
+        durableLock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (!running) {
+                    throw new IllegalStateException("Journal is closed");
+                }
+                recordsDurable.await(100, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the journal", e);
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    /**
+     * Starts a new segment, writes the current state to a snapshot for it and deletes the files the
+     * snapshot replaces. Writers are blocked only while the stores' contents are captured.
+     */
+    public void snapshot() throws IOException {
+        long snapshotGeneration;
+        Map<Byte, AbstractMockRepository.SnapshotSection> captured = new TreeMap<>();
+        rotationLock.writeLock().lock();
+        try {
+            ioLock.lock();
+            try {
+                flushPending();
+                FileChannel previous = segment;
+                snapshotGeneration = ++generation;
+                segment = openSegment(snapshotGeneration);
+                segmentBytes = 0;
+                previous.close();
+            } finally {
+                ioLock.unlock();
+            }
+            for (AbstractMockRepository<?> repository : repositories) {
+                captured.put(repository.journalType(), repository.captureSnapshot());
+            }
+        } finally {
+            rotationLock.writeLock().unlock();
+        }
+
+        Path target = directory.resolve(fileName("snapshot", snapshotGeneration));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            SnapshotWriter writer = new SnapshotWriter(channel);
+            for (Map.Entry<Byte, AbstractMockRepository.SnapshotSection> section : captured.entrySet()) {
+                writer.beginSection(section.getKey());
+                section.getValue().write(writer);
+                writer.endSection();
+            }
+            writer.finish();
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches() && Long.parseLong(matcher.group(2)) < snapshotGeneration) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            appendLock.lock();
+            try {
+                if (pending.size() == 0) {
+                    recordsPending.await(10, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                appendLock.unlock();
+            }
+
+            ioLock.lock();
+            try {
+                flushPending();
+            } catch (IOException e) {
+                log.error("Journal flush failed", e);
+            } finally {
+                ioLock.unlock();
+            }
+
+            if (segmentBytes > snapshotThresholdBytes && snapshotRunning.compareAndSet(false, true)) {
+                snapshotExecutor.execute(() -> {
+                    try {
+                        snapshot();
+                    } catch (IOException e) {
+                        log.error("Journal snapshot failed", e);
+                    } finally {
+                        snapshotRunning.set(false);
+                    }
+                });
+            }
+        }
+    }
+
+    // Writes and fsyncs everything appended so far; the caller holds ioLock
+    private void flushPending() throws IOException {
+        RecordBuffer batch;
+        long sequence;
+        appendLock.lock();
+        try {
+            if (pending.size() == 0) {
+                return;
+            }
+            batch = pending;
+            pending = spare;
+            spare = batch;
+            sequence = appendedSequence;
+        } finally {
+            appendLock.unlock();
+        }
+        int bytes = batch.size();
+        writeFully(segment, batch);
+        segment.force(false);
+        segmentBytes += bytes;
+        durableLock.lock();
+        try {
+            durableSequence = sequence;
+            recordsDurable.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    /**
+     * Loads a columnar snapshot. Every section is memory-mapped, and each repository's sections are
+     * decoded in parallel with the others'; the rows are then restored repository by repository in
+     * journal type order, since later types reference earlier ones.
+     */
+    private long loadSnapshot(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (!SnapshotReader.isSnapshot(channel)) {
+                // Written before snapshots became columnar: a plain sequence of save records
+                return replay(file);
+            }
+            Map<Byte, List<SnapshotReader>> sectionsByType = new TreeMap<>();
+            for (SnapshotReader.Section section : SnapshotReader.sections(channel)) {
+                if (!repositoriesByType.containsKey(section.type())) {
+                    throw new IOException("Unknown journal type " + section.type());
+                }
+                sectionsByType.computeIfAbsent(section.type(), type -> new ArrayList<>())
+                        .add(new SnapshotReader(section.buffer()));
+            }
+            Map<Byte, CompletableFuture<IntSupplier>> decoded = new TreeMap<>();
+            sectionsByType.forEach((type, sections) -> decoded.put(type, CompletableFuture.supplyAsync(() -> {
+                try {
+                    return repositoriesByType.get(type).loadSnapshot(sections);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            })));
+            long records = 0;
+            for (CompletableFuture<IntSupplier> restore : decoded.values()) {
+                records += restore.join().getAsInt();
+            }
+            return records;
+        }
+    }
+
+    private long replay(Path file) throws IOException {
+        long records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            CRC32 crc = new CRC32();
+            byte[] body = new byte[256];
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                try {
+                    int checksum = in.readInt();
+                    if (length < 10) {
+                        throw new IOException("Invalid record length " + length);
+                    }
+                    if (body.length < length) {
+                        body = new byte[Math.max(length, body.length * 2)];
+                    }
+                    in.readFully(body, 0, length);
+                    crc.reset();
+                    crc.update(body, 0, length);
+                    if ((int) crc.getValue() != checksum) {
+                        throw new IOException("Checksum mismatch");
+                    }
+                } catch (IOException e) {
+                    log.warn("Stopping replay of {} after {} records: {}", file.getFileName(), records, e.toString());
+                    break;
+                }
+                apply(new DataInputStream(new ByteArrayInputStream(body, 0, length)));
+                records++;
+            }
+        }
+        return records;
+    }
+
+    private void apply(DataInput in) throws IOException {
+        byte type = in.readByte();
+        byte op = in.readByte();
+        long id = in.readLong();
+        AbstractMockRepository<?> repository = repositoriesByType.get(type);
+        if (repository == null) {
+            throw new IOException("Unknown journal type " + type);
+        }
+        if (op == OP_SAVE) {
+            repository.restore(id, in);
+        } else if (op == OP_DELETE) {
+            repository.restoreDelete(id);
+        } else {
+            throw new IOException("Unknown journal operation " + op);
+        }
+    }
+
+    private FileChannel openSegment(long segmentGeneration) throws IOException {
+        return FileChannel.open(directory.resolve(fileName("journal", segmentGeneration)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static String fileName(String kind, long fileGeneration) {
+        return String.format("%s-%016d.%s", kind, fileGeneration, kind.equals("journal") ? "log" : "bin");
+    }
+
+    private static void writeFully(FileChannel channel, RecordBuffer buffer) throws IOException {
+        ByteBuffer bytes = buffer.asByteBuffer();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        buffer.reset();
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    public static void writeDecimal(DataOutput out, BigDecimal value) throws IOException {
+        if (value == null) {
+            out.writeByte(-1);
+            return;
+        }
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        out.writeByte(unscaled.length);
+        out.write(unscaled);
+        out.writeInt(value.scale());
+    }
+
+    public static BigDecimal readDecimal(DataInput in) throws IOException {
+        int length = in.readByte();
+        if (length < 0) {
+            return null;
+        }
+        byte[] unscaled = new byte[length];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), in.readInt());
+    }
+
+    public static void writeTime(DataOutput out, LocalDateTime value) throws IOException {
+        if (value == null) {
+            out.writeLong(Long.MIN_VALUE);
+            return;
+        }
+        out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(value.getNano());
+    }
+
+    public static LocalDateTime readTime(DataInput in) throws IOException {
+        long seconds = in.readLong();
+        return seconds == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(seconds, in.readInt(), ZoneOffset.UTC);
+    }
+
+    // Ids are written as 0 for a missing association; generated ids start at 1
+    public static void writeId(DataOutput out, Long id) throws IOException {
+        out.writeLong(id != null ? id : 0L);
+    }
+
+    public static Long readId(DataInput in) throws IOException {
+        long id = in.readLong();
+        return id != 0L ? id : null;
+    }
+
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+
+        RecordBuffer() {
+            super(1 << 16);
+        }
+
+        ByteBuffer asByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+
+        void patchInt(int offset, int value) {
+            buf[offset] = (byte) (value >>> 24);
+            buf[offset + 1] = (byte) (value >>> 16);
+            buf[offset + 2] = (byte) (value >>> 8);
+            buf[offset + 3] = (byte) value;
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+
+    private static final class Encoder {
+        private final RecordBuffer buffer = new RecordBuffer();
+        private final DataOutputStream out = new DataOutputStream(buffer);
+        private final CRC32 crc = new CRC32();
+
+        void begin(byte type, byte op, long id) throws IOException {
+            buffer.reset();
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeByte(type);
+            out.writeByte(op);
+            out.writeLong(id);
+        }
+
+        byte[] finish() {
+            int length = buffer.size() - HEADER_BYTES;
+            crc.reset();
+            crc.update(buffer.array(), HEADER_BYTES, length);
+            buffer.patchInt(0, length);
+            buffer.patchInt(4, (int) crc.getValue());
+            return buffer.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.familynest.repository;
+
+import com.familynest.model.OutboxEvent;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+@Repository
+@Primary
+public class MockOutboxEventRepository extends AbstractMockRepository<OutboxEvent> implements OutboxEventRepository {
+    private final NavigableSet<Long> pending = new ConcurrentSkipListSet<>();
+
+    @Override
+    protected Long getId(OutboxEvent event) {
+        return event.getId();
+    }
+
+    @Override
+    protected void setId(OutboxEvent event, Long id) {
+        event.setId(id);
+    }
+
+    @Override
+    protected byte journalType() {
+        return 5;
+    }
+
+    @Override
+    protected void writeEntity(DataOutput out, OutboxEvent event) throws IOException {
+        out.writeByte(event.getType().ordinal());
+        MockJournal.writeId(out, event.getFamilyId());
+        MockJournal.writeId(out, event.getUserId());
+        MockJournal.writeId(out, event.getAccountId());
+        MockJournal.writeId(out, event.getTransactionId());
+        MockJournal.writeDecimal(out, event.getAmount());
+        MockJournal.writeDecimal(out, event.getBalance());
+        MockJournal.writeString(out, event.getDescription());
+        MockJournal.writeTime(out, event.getOccurredAt());
+    }
+
+    @Override
+    protected OutboxEvent readEntity(Long id, DataInput in) throws IOException {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setType(OutboxEvent.Type.values()[in.readByte()]);
+        event.setFamilyId(MockJournal.readId(in));
+        event.setUserId(MockJournal.readId(in));
+        event.setAccountId(MockJournal.readId(in));
+        event.setTransactionId(MockJournal.readId(in));
+        event.setAmount(MockJournal.readDecimal(in));
+        event.setBalance(MockJournal.readDecimal(in));
+        event.setDescription(MockJournal.readString(in));
+        event.setOccurredAt(MockJournal.readTime(in));
+        return event;
+    }
+
+    @Override
+    protected void index(OutboxEvent event) {
+        pending.add(event.getId());
+    }
+
+    @Override
+    protected void unindex(Long id) {
+        pending.remove(id);
+    }
+
+    @Override
+    public List<OutboxEvent> findByOrderByIdAsc(Pageable pageable) {
+        List<OutboxEvent> result = new ArrayList<>();
+        Iterator<Long> ids = pending.iterator();
+        for (long skip = pageable.isUnpaged() ? 0 : pageable.getOffset(); skip > 0 && ids.hasNext(); skip--) {
+            ids.next();
+        }
+        while (ids.hasNext() && (pageable.isUnpaged() || result.size() < pageable.getPageSize())) {
+            findById(ids.next()).ifPresent(result::add);
+        }
+        return result;
+    }
+}
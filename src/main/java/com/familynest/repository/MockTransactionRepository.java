@@ -1,42 +1,124 @@
-
 package com.familynest.repository;
 
 import com.familynest.model.Account;
 import com.familynest.model.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.IntSupplier;
 
+/**
+ * Transactions are kept in {@link TransactionColumns} rather than as entities, and built as
+ * {@link Transaction} objects only when they are read.
+ */
 @Repository
 @Primary
-public class MockTransactionRepository implements TransactionRepository {
-    private List<Transaction> transactions;
-    private Long currentId = 1L;
+public class MockTransactionRepository extends AbstractMockRepository<Transaction> implements TransactionRepository {
+    private final TransactionColumns columns;
+
+    @Autowired
+    private AccountRepository accountRepository;
 
     public MockTransactionRepository() {
-        transactions = new ArrayList<>();
+        this(new TransactionColumns());
+    }
+
+    private MockTransactionRepository(TransactionColumns columns) {
+        super(columns);
+        this.columns = columns;
+        columns.resolveAccountsWith(id -> accountRepository.findById(id).orElse(null));
     }
 
     @Override
-    public List<Transaction> findByAccountOrderByCreatedAtDesc(Account account) {
-        return transactions.stream()
-                .filter(transaction -> transaction.getAccount().getId().equals(account.getId()))
-                .sorted((t1, t2) -> t2.getCreatedAt().compareTo(t1.getCreatedAt()))
-                .collect(Collectors.toList());
+    protected Long getId(Transaction transaction) {
+        return transaction.getId();
+    }
+
+    @Override
+    protected void setId(Transaction transaction, Long id) {
+        transaction.setId(id);
+    }
+
+    @Override
+    protected byte journalType() {
+        return 3;
+    }
+
+    @Override
+    protected void writeEntity(DataOutput out, Transaction transaction) throws IOException {
+        MockJournal.writeDecimal(out, transaction.getAmount());
+        MockJournal.writeString(out, transaction.getDescription());
+        MockJournal.writeId(out, transaction.getAccount() != null ? transaction.getAccount().getId() : null);
+        MockJournal.writeTime(out, transaction.getCreatedAt());
+    }
+
+    @Override
+    SnapshotSection captureSnapshot() {
+        int limit = columns.rowLimit();
+        return out -> columns.writeSnapshot(out, limit);
+    }
+
+    // One section per block of rows; the blocks are decoded, and later loaded, in parallel
+    @Override
+    IntSupplier loadSnapshot(List<SnapshotReader> sections) {
+        List<TransactionColumns.Block> blocks = sections.parallelStream().map(TransactionColumns::readBlock).toList();
+        // Accounts are resolved when rows are read, so the columns are filled without building entities
+        return () -> {
+            idsRestoredUpTo(columns.load(blocks));
+            return blocks.stream().mapToInt(block -> block.ids().length).sum();
+        };
     }
 
     @Override
-    public Transaction save(Transaction transaction) {
-        if (transaction.getId() == null) {
-            transaction.setId(currentId++);
-            transaction.setCreatedAt(LocalDateTime.now());
+    protected Transaction readEntity(Long id, DataInput in) throws IOException {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setAmount(MockJournal.readDecimal(in));
+        transaction.setDescription(MockJournal.readString(in));
+        Long accountId = MockJournal.readId(in);
+        if (accountId != null) {
+            transaction.setAccount(accountRepository.findById(accountId)
+                    .orElseThrow(() -> new IOException("Journal references unknown account " + accountId)));
         }
-        transactions.removeIf(existingTransaction -> existingTransaction.getId().equals(transaction.getId()));
-        transactions.add(transaction);
+        transaction.setCreatedAt(MockJournal.readTime(in));
         return transaction;
     }
+
+    @Override
+    protected void onCreate(Transaction transaction) {
+        transaction.setCreatedAt(TransactionColumns.truncate(LocalDateTime.now()));
+    }
+
+    @Override
+    public List<Transaction> findByAccount(Account account) {
+        return columns.newestFirst(account.getId(), 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Transaction> findByAccountOrderByCreatedAtDesc(Account account) {
+        return columns.newestFirst(account.getId(), 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Transaction> findByAccountOrderByCreatedAtDescIdDesc(Account account, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return columns.newestFirst(account.getId(), 0, Integer.MAX_VALUE);
+        }
+        return columns.newestFirst(account.getId(), pageable.getOffset(), pageable.getPageSize());
+    }
+
+    @Override
+    public List<Transaction> findByAccountBefore(Account account, LocalDateTime createdAt, Long id, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return columns.olderThan(account.getId(), createdAt, id, 0, Integer.MAX_VALUE);
+        }
+        return columns.olderThan(account.getId(), createdAt, id, pageable.getOffset(), pageable.getPageSize());
+    }
 }
@@ -1,80 +1,221 @@
-
 package com.familynest.repository;
 
 import com.familynest.model.User;
 import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Repository;
 
-import java.util.ArrayList;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @Repository
 @Primary
-public class MockUserRepository implements UserRepository {
-    private List<User> users;
-    private Long currentId = 1L;
+public class MockUserRepository extends AbstractMockRepository<User> implements UserRepository {
+    private final ConcurrentMap<String, Long> usernameIndex = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> emailIndex = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, NavigableSet<Long>> childrenByParent = new ConcurrentHashMap<>();
+    // Keys each user is currently indexed under, so a re-save can drop the stale ones
+    private final ConcurrentMap<Long, IndexKeys> indexedKeys = new ConcurrentHashMap<>();
 
     public MockUserRepository() {
-        users = new ArrayList<>();
         // Add dummy parent user
         User parentUser = new User();
-        parentUser.setId(currentId++);
         parentUser.setUsername("parent");
         parentUser.setEmail("parent@example.com");
         parentUser.setPassword("$2a$10$dXJ3SW6G7P50lGmMkkmwe.20cQQubK3.HZWzG3YB1tlRy.fqvM/BG"); // password: "password"
         parentUser.setRole(User.Role.PARENT);
-        users.add(parentUser);
+        save(parentUser);
 
         // Add dummy child user
         User childUser = new User();
-        childUser.setId(currentId++);
         childUser.setUsername("child");
         childUser.setEmail("child@example.com");
         childUser.setPassword("$2a$10$dXJ3SW6G7P50lGmMkkmwe.20cQQubK3.HZWzG3YB1tlRy.fqvM/BG"); // password: "password"
         childUser.setRole(User.Role.CHILD);
         childUser.setParent(parentUser);
-        users.add(childUser);
+        save(childUser);
+    }
+
+    @Override
+    protected Long getId(User user) {
+        return user.getId();
+    }
+
+    @Override
+    protected void setId(User user, Long id) {
+        user.setId(id);
+    }
+
+    @Override
+    protected byte journalType() {
+        return 1;
+    }
+
+    @Override
+    protected void writeEntity(DataOutput out, User user) throws IOException {
+        MockJournal.writeString(out, user.getUsername());
+        MockJournal.writeString(out, user.getEmail());
+        MockJournal.writeString(out, user.getPassword());
+        out.writeByte(user.getRole() != null ? user.getRole().ordinal() : -1);
+        MockJournal.writeId(out, user.getParent() != null ? user.getParent().getId() : null);
+    }
+
+    @Override
+    protected void writeSnapshot(SnapshotWriter out, List<User> users) throws IOException {
+        out.writeLongs(users.size(), i -> users.get(i).getId());
+        out.writeStrings(users.size(), i -> users.get(i).getUsername());
+        out.writeStrings(users.size(), i -> users.get(i).getEmail());
+        out.writeDictionary(users.size(), i -> users.get(i).getPassword());
+        out.writeBytes(users.size(), i -> users.get(i).getRole() != null ? users.get(i).getRole().ordinal() : -1);
+        out.writeLongs(users.size(), i -> users.get(i).getParent() != null ? users.get(i).getParent().getId() : 0L);
+    }
+
+    @Override
+    protected SnapshotRows<User> readSnapshot(SnapshotReader in) {
+        long[] ids = in.readLongs();
+        String[] usernames = in.readStrings();
+        String[] emails = in.readStrings();
+        String[] passwords = in.readDictionary();
+        byte[] roles = in.readBytes();
+        long[] parentIds = in.readLongs();
+        User.Role[] roleValues = User.Role.values();
+        // In id order: a parent is always restored before its children
+        return new SnapshotRows<>(ids.length, false, i -> {
+            User user = new User();
+            user.setId(ids[i]);
+            user.setUsername(usernames[i]);
+            user.setEmail(emails[i]);
+            user.setPassword(passwords[i]);
+            user.setRole(roles[i] >= 0 ? roleValues[roles[i]] : null);
+            if (parentIds[i] != 0L) {
+                user.setParent(findById(parentIds[i])
+                        .orElseThrow(() -> new IllegalStateException("Snapshot references unknown user " + parentIds[i])));
+            }
+            return user;
+        });
+    }
+
+    @Override
+    protected User readEntity(Long id, DataInput in) throws IOException {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(MockJournal.readString(in));
+        user.setEmail(MockJournal.readString(in));
+        user.setPassword(MockJournal.readString(in));
+        int role = in.readByte();
+        user.setRole(role >= 0 ? User.Role.values()[role] : null);
+        Long parentId = MockJournal.readId(in);
+        if (parentId != null) {
+            user.setParent(findById(parentId)
+                    .orElseThrow(() -> new IOException("Journal references unknown user " + parentId)));
+        }
+        return user;
+    }
+
+    // Children and accounts hold on to the stored instance, so a replayed save updates it in place
+    @Override
+    protected User mergeRestored(User existing, User restored) {
+        existing.setUsername(restored.getUsername());
+        existing.setEmail(restored.getEmail());
+        existing.setPassword(restored.getPassword());
+        existing.setRole(restored.getRole());
+        existing.setParent(restored.getParent());
+        return existing;
+    }
+
+    @Override
+    protected void index(User user) {
+        Long id = user.getId();
+        IndexKeys keys = IndexKeys.of(user);
+        IndexKeys previous = indexedKeys.getOrDefault(id, IndexKeys.NONE);
+
+        claim(usernameIndex, keys.username(), id, "Username is already taken");
+        try {
+            claim(emailIndex, keys.email(), id, "Email is already in use");
+        } catch (DataIntegrityViolationException e) {
+            if (!Objects.equals(keys.username(), previous.username())) {
+                usernameIndex.remove(keys.username(), id);
+            }
+            throw e;
+        }
+
+        if (!Objects.equals(keys.username(), previous.username()) && previous.username() != null) {
+            usernameIndex.remove(previous.username(), id);
+        }
+        if (!Objects.equals(keys.email(), previous.email()) && previous.email() != null) {
+            emailIndex.remove(previous.email(), id);
+        }
+        if (!Objects.equals(keys.parentId(), previous.parentId())) {
+            removeFromIndex(childrenByParent, previous.parentId(), id);
+            addToIndex(childrenByParent, keys.parentId(), id);
+        }
+        indexedKeys.put(id, keys);
+    }
+
+    @Override
+    protected void unindex(Long id) {
+        IndexKeys previous = indexedKeys.remove(id);
+        if (previous == null) {
+            return;
+        }
+        if (previous.username() != null) {
+            usernameIndex.remove(previous.username(), id);
+        }
+        if (previous.email() != null) {
+            emailIndex.remove(previous.email(), id);
+        }
+        removeFromIndex(childrenByParent, previous.parentId(), id);
+    }
+
+    private static void claim(ConcurrentMap<String, Long> index, String key, Long id, String message) {
+        if (key == null) {
+            return;
+        }
+        Long owner = index.putIfAbsent(key, id);
+        if (owner != null && !owner.equals(id)) {
+            throw new DataIntegrityViolationException(message);
+        }
     }
 
     @Override
     public Optional<User> findByUsername(String username) {
-        return users.stream()
-                .filter(user -> user.getUsername().equals(username))
-                .findFirst();
+        return username == null ? Optional.empty() : findById(usernameIndex.get(username));
     }
 
     @Override
     public Optional<User> findByEmail(String email) {
-        return users.stream()
-                .filter(user -> user.getEmail().equals(email))
-                .findFirst();
+        return email == null ? Optional.empty() : findById(emailIndex.get(email));
     }
 
     @Override
     public boolean existsByUsername(String username) {
-        return users.stream().anyMatch(user -> user.getUsername().equals(username));
+        return username != null && usernameIndex.containsKey(username);
     }
 
     @Override
     public boolean existsByEmail(String email) {
-        return users.stream().anyMatch(user -> user.getEmail().equals(email));
+        return email != null && emailIndex.containsKey(email);
     }
 
     @Override
-    public Optional<User> findById(Long id) {
-        return users.stream()
-                .filter(user -> user.getId().equals(id))
-                .findFirst();
+    public List<User> findByParent(User parent) {
+        return findAllByIds(childrenByParent.get(parent.getId()));
     }
 
-    @Override
-    public User save(User user) {
-        if (user.getId() == null) {
-            user.setId(currentId++);
+    private record IndexKeys(String username, String email, Long parentId) {
+        static final IndexKeys NONE = new IndexKeys(null, null, null);
+
+        static IndexKeys of(User user) {
+            return new IndexKeys(user.getUsername(), user.getEmail(),
+                    user.getParent() != null ? user.getParent().getId() : null);
         }
-        users.removeIf(existingUser -> existingUser.getId().equals(user.getId()));
-        users.add(user);
-        return user;
     }
 }
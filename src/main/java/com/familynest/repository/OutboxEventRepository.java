@@ -0,0 +1,14 @@
+package com.familynest.repository;
+
+import com.familynest.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    // Oldest undispatched events first
+    List<OutboxEvent> findByOrderByIdAsc(Pageable pageable);
+}
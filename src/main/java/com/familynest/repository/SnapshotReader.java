@@ -0,0 +1,162 @@
+package com.familynest.repository;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the columns of one memory-mapped snapshot section, in the order {@link SnapshotWriter} wrote them.
+ * Primitive columns are copied out with a single bulk get.
+ */
+public final class SnapshotReader {
+
+    private final ByteBuffer buffer;
+
+    SnapshotReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    static boolean isSnapshot(FileChannel channel) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(8);
+        while (magic.hasRemaining() && channel.read(magic, magic.position()) > 0) {
+            // keep reading until the magic is complete or the file ends
+        }
+        return !magic.hasRemaining() && magic.getLong(0) == SnapshotWriter.MAGIC;
+    }
+
+    // The sections of a snapshot file, each mapped on its own so no single mapping exceeds 2 GB
+    static List<Section> sections(FileChannel channel) throws IOException {
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, SnapshotWriter.HEADER_BYTES);
+        long directoryOffset = header.getLong(8);
+        ByteBuffer directory = channel.map(FileChannel.MapMode.READ_ONLY, directoryOffset, channel.size() - directoryOffset);
+        int count = directory.getInt();
+        List<Section> sections = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte type = directory.get();
+            long offset = directory.getLong();
+            long length = directory.getLong();
+            sections.add(new Section(type, channel.map(FileChannel.MapMode.READ_ONLY, offset, length)));
+        }
+        return sections;
+    }
+
+    public long[] readLongs() {
+        long[] values = new long[buffer.getInt()];
+        buffer.asLongBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Long.BYTES);
+        return values;
+    }
+
+    public int[] readInts() {
+        int[] values = new int[buffer.getInt()];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Integer.BYTES);
+        return values;
+    }
+
+    public byte[] readBytes() {
+        byte[] values = new byte[buffer.getInt()];
+        buffer.get(values);
+        return values;
+    }
+
+    public String[] readStrings() {
+        String[] values = new String[buffer.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            int length = buffer.getInt();
+            if (length >= 0) {
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                values[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+        return values;
+    }
+
+    public byte[][] readBlobs() {
+        byte[][] values = new byte[buffer.getInt()][];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new byte[buffer.getInt()];
+            buffer.get(values[i]);
+        }
+        return values;
+    }
+
+    // One entry per row; rows with the same text share a single String instance
+    public String[] readDictionary() {
+        DictionaryColumn column = readDictionaryCodes();
+        String[] values = new String[column.codes().length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = column.get(i);
+        }
+        return values;
+    }
+
+    // The dictionary and the per-row codes as written, for stores that keep their own dictionary
+    public DictionaryColumn readDictionaryCodes() {
+        return new DictionaryColumn(readStrings(), readInts());
+    }
+
+    public DecimalColumn readDecimals() {
+        long[] unscaled = readLongs();
+        byte[] scales = readBytes();
+        String[] overflow = readStrings();
+        return new DecimalColumn(unscaled, scales, overflow, overflowIndexes(scales));
+    }
+
+    public TimeColumn readTimes() {
+        return new TimeColumn(readLongs(), readInts());
+    }
+
+    private static int[] overflowIndexes(byte[] scales) {
+        int[] indexes = new int[scales.length];
+        int next = 0;
+        for (int i = 0; i < scales.length; i++) {
+            indexes[i] = scales[i] == SnapshotWriter.OVERFLOW_SCALE ? next++ : -1;
+        }
+        return indexes;
+    }
+
+    record Section(byte type, ByteBuffer buffer) {
+    }
+
+    public record DecimalColumn(long[] unscaled, byte[] scales, String[] overflow, int[] overflowIndexes) {
+
+        public int size() {
+            return scales.length;
+        }
+
+        public BigDecimal get(int row) {
+            byte scale = scales[row];
+            if (scale == SnapshotWriter.NULL_SCALE) {
+                return null;
+            }
+            if (scale == SnapshotWriter.OVERFLOW_SCALE) {
+                return new BigDecimal(overflow[overflowIndexes[row]]);
+            }
+            return BigDecimal.valueOf(unscaled[row], scale);
+        }
+    }
+
+    public record DictionaryColumn(String[] dictionary, int[] codes) {
+
+        public String get(int row) {
+            return codes[row] >= 0 ? dictionary[codes[row]] : null;
+        }
+    }
+
+    public record TimeColumn(long[] seconds, int[] nanos) {
+
+        public LocalDateTime get(int row) {
+            return seconds[row] != Long.MIN_VALUE
+                    ? LocalDateTime.ofEpochSecond(seconds[row], nanos[row], ZoneOffset.UTC)
+                    : null;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.familynest.repository;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Writes a columnar snapshot: a header, one section per repository and a directory of the sections
+ * at the end. Within a section every column is a count followed by the values, so primitive columns
+ * can be read back with a single bulk copy from a memory-mapped buffer (see {@link SnapshotReader}).
+ */
+public final class SnapshotWriter {
+
+    static final long MAGIC = 0x464E534E41505331L; // "FNSNAPS1"
+    static final int HEADER_BYTES = 8 + 8;
+    static final byte NULL_SCALE = Byte.MIN_VALUE;
+    static final byte OVERFLOW_SCALE = Byte.MAX_VALUE;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+    private final List<long[]> sections = new ArrayList<>();
+    private long flushed;
+    private long sectionStart = -1;
+    private byte sectionType;
+
+    SnapshotWriter(FileChannel channel) {
+        this.channel = channel;
+        buffer.putLong(MAGIC);
+        // Directory offset, filled in by finish()
+        buffer.putLong(0L);
+    }
+
+    void beginSection(byte type) {
+        sectionType = type;
+        sectionStart = position();
+    }
+
+    void endSection() {
+        sections.add(new long[] {sectionType, sectionStart, position() - sectionStart});
+        sectionStart = -1;
+    }
+
+    // Ends the current section and starts another of the same type, for rows split into blocks that load in parallel
+    public void nextSection() {
+        byte type = sectionType;
+        endSection();
+        beginSection(type);
+    }
+
+    void finish() throws IOException {
+        long directoryOffset = position();
+        ensure(4);
+        buffer.putInt(sections.size());
+        for (long[] section : sections) {
+            ensure(17);
+            buffer.put((byte) section[0]);
+            buffer.putLong(section[1]);
+            buffer.putLong(section[2]);
+        }
+        flush();
+        ByteBuffer offset = ByteBuffer.allocate(8).putLong(0, directoryOffset);
+        channel.write(offset, 8);
+    }
+
+    public void writeLongs(int count, IntToLongFunction values) throws IOException {
+        ensure(4);
+        buffer.putInt(count);
+        for (int i = 0; i < count; i++) {
+            ensure(8);
+            buffer.putLong(values.applyAsLong(i));
+        }
+    }
+
+    public void writeInts(int count, IntUnaryOperator values) throws IOException {
+        ensure(4);
+        buffer.putInt(count);
+        for (int i = 0; i < count; i++) {
+            ensure(4);
+            buffer.putInt(values.applyAsInt(i));
+        }
+    }
+
+    public void writeBytes(int count, IntUnaryOperator values) throws IOException {
+        ensure(4);
+        buffer.putInt(count);
+        for (int i = 0; i < count; i++) {
+            ensure(1);
+            buffer.put((byte) values.applyAsInt(i));
+        }
+    }
+
+    // Each value as its UTF-8 length (-1 for null) and bytes
+    public void writeStrings(int count, IntFunction<String> values) throws IOException {
+        ensure(4);
+        buffer.putInt(count);
+        for (int i = 0; i < count; i++) {
+            String value = values.apply(i);
+            if (value == null) {
+                ensure(4);
+                buffer.putInt(-1);
+                continue;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(4);
+            buffer.putInt(bytes.length);
+            put(bytes);
+        }
+    }
+
+    // Each value as its length and bytes, for rows stored in their journal encoding
+    public void writeBlobs(int count, IntFunction<byte[]> values) throws IOException {
+        ensure(4);
+        buffer.putInt(count);
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = values.apply(i);
+            ensure(4);
+            buffer.putInt(bytes.length);
+            put(bytes);
+        }
+    }
+
+    // Distinct values once, then one int code per row (-1 for null); suits repetitive text such as descriptions
+    public void writeDictionary(int count, IntFunction<String> values) throws IOException {
+        Map<String, Integer> codes = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        int[] rows = new int[count];
+        for (int i = 0; i < count; i++) {
+            String value = values.apply(i);
+            if (value == null) {
+                rows[i] = -1;
+                continue;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                codes.put(value, code);
+                dictionary.add(value);
+            }
+            rows[i] = code;
+        }
+        writeStrings(dictionary.size(), dictionary::get);
+        writeInts(count, i -> rows[i]);
+    }
+
+    /**
+     * Unscaled values as a long column plus a scale column. Values whose unscaled form does not fit in a
+     * long are marked with {@link #OVERFLOW_SCALE} and written as strings after the two columns.
+     */
+    public void writeDecimals(int count, IntFunction<BigDecimal> values) throws IOException {
+        List<String> overflow = new ArrayList<>();
+        byte[] scales = new byte[count];
+        long[] unscaled = new long[count];
+        for (int i = 0; i < count; i++) {
+            BigDecimal value = values.apply(i);
+            if (value == null) {
+                scales[i] = NULL_SCALE;
+            } else if (value.unscaledValue().bitLength() < 64 && value.scale() > NULL_SCALE && value.scale() < OVERFLOW_SCALE) {
+                scales[i] = (byte) value.scale();
+                unscaled[i] = value.unscaledValue().longValueExact();
+            } else {
+                scales[i] = OVERFLOW_SCALE;
+                overflow.add(value.toString());
+            }
+        }
+        writeLongs(count, i -> unscaled[i]);
+        writeBytes(count, i -> scales[i]);
+        writeStrings(overflow.size(), overflow::get);
+    }
+
+    // Seconds since the epoch (Long.MIN_VALUE for null) and nanoseconds, as two columns
+    public void writeTimes(int count, IntFunction<LocalDateTime> values) throws IOException {
+        writeLongs(count, i -> {
+            LocalDateTime value = values.apply(i);
+            return value != null ? value.toEpochSecond(ZoneOffset.UTC) : Long.MIN_VALUE;
+        });
+        writeInts(count, i -> {
+            LocalDateTime value = values.apply(i);
+            return value != null ? value.getNano() : 0;
+        });
+    }
+
+    private long position() {
+        return flushed + buffer.position();
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            ensure(1);
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            flushed += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,601 @@
+package com.familynest.repository;
+
+import com.familynest.model.Account;
+import com.familynest.model.Transaction;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+
+/**
+ * Column-oriented storage for transactions, roughly 38 bytes per row instead of a full entity graph.
+ * <p>
+ * Row {@code id - 1} of a set of fixed-size chunks holds the account id, the amount as an unscaled
+ * long plus scale, a code into a shared description dictionary and the creation time in epoch
+ * microseconds. Each account's history is a sorted array of ids. {@link Transaction} objects are only
+ * built when a row is read, with the account resolved by id.
+ * <p>
+ * Rows are guarded by striped locks. An account's history is guarded by its own monitor; a row is
+ * taken out of it before its creation time or account changes, so a history only ever compares rows
+ * whose times are stable.
+ */
+final class TransactionColumns implements AbstractMockRepository.EntityStore<Transaction> {
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int STRIPES = 64;
+    // Rows per snapshot section; sections are decoded and loaded in parallel
+    private static final int BLOCK_ROWS = 1 << 20;
+
+    private static final byte EMPTY = 0;
+    private static final byte LIVE = 1;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final Object growLock = new Object();
+    private volatile Chunk[] chunks = new Chunk[16];
+    // One past the highest row ever written
+    private final AtomicInteger rowLimit = new AtomicInteger();
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final ConcurrentMap<Long, Timeline> timelines = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Integer> descriptionCodes = new ConcurrentHashMap<>();
+    private final Object dictionaryLock = new Object();
+    private volatile String[] descriptions = new String[256];
+    private int descriptionCount;
+    // Amounts whose unscaled value does not fit in a long, by id
+    private final ConcurrentMap<Long, BigDecimal> overflowAmounts = new ConcurrentHashMap<>();
+
+    private LongFunction<Account> accounts = id -> null;
+
+    TransactionColumns() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    void resolveAccountsWith(LongFunction<Account> accounts) {
+        this.accounts = accounts;
+    }
+
+    // Creation times are kept to the microsecond, like a SQL timestamp
+    static LocalDateTime truncate(LocalDateTime time) {
+        return time != null ? time.truncatedTo(ChronoUnit.MICROS) : null;
+    }
+
+    static long micros(LocalDateTime time) {
+        if (time == null) {
+            return NO_TIME;
+        }
+        return Math.addExact(Math.multiplyExact(time.toEpochSecond(ZoneOffset.UTC), 1_000_000L), time.getNano() / 1_000);
+    }
+
+    private static LocalDateTime time(long micros) {
+        if (micros == NO_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    @Override
+    public Transaction get(Long id) {
+        int row = rowOrMinusOne(id);
+        if (row < 0) {
+            return null;
+        }
+        ReentrantLock lock = stripe(row);
+        lock.lock();
+        try {
+            Chunk chunk = chunkOrNull(row);
+            return chunk != null && chunk.state[row & CHUNK_MASK] == LIVE ? materialize(chunk, row, id) : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(Long id) {
+        int row = rowOrMinusOne(id);
+        if (row < 0) {
+            return false;
+        }
+        ReentrantLock lock = stripe(row);
+        lock.lock();
+        try {
+            Chunk chunk = chunkOrNull(row);
+            return chunk != null && chunk.state[row & CHUNK_MASK] == LIVE;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public void put(Long id, Transaction transaction, Runnable whileLocked) {
+        int row = row(id);
+        Chunk chunk = chunkFor(row);
+        int i = row & CHUNK_MASK;
+        long accountId = transaction.getAccount() != null && transaction.getAccount().getId() != null
+                ? transaction.getAccount().getId() : 0L;
+        long createdAt = micros(transaction.getCreatedAt());
+        int description = descriptionCode(transaction.getDescription());
+
+        ReentrantLock lock = stripe(row);
+        lock.lock();
+        try {
+            whileLocked.run();
+            boolean existed = chunk.state[i] == LIVE;
+            if (existed) {
+                unlink(chunk.accountIds[i], id, chunk.createdAt[i]);
+                overflowAmounts.remove(id);
+            }
+            chunk.accountIds[i] = accountId;
+            chunk.createdAt[i] = createdAt;
+            chunk.descriptions[i] = description;
+            writeAmount(chunk, i, id, transaction.getAmount());
+            chunk.state[i] = LIVE;
+            if (!existed) {
+                size.incrementAndGet();
+                rowLimit.accumulateAndGet(row + 1, Math::max);
+            }
+            link(accountId, id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Long id, Runnable whileLocked) {
+        int row = rowOrMinusOne(id);
+        if (row < 0) {
+            return false;
+        }
+        ReentrantLock lock = stripe(row);
+        lock.lock();
+        try {
+            Chunk chunk = chunkOrNull(row);
+            int i = row & CHUNK_MASK;
+            if (chunk == null || chunk.state[i] != LIVE) {
+                return false;
+            }
+            whileLocked.run();
+            unlink(chunk.accountIds[i], id, chunk.createdAt[i]);
+            overflowAmounts.remove(id);
+            chunk.state[i] = EMPTY;
+            size.decrementAndGet();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Long> ids() {
+        List<Long> ids = new ArrayList<>();
+        int limit = rowLimit.get();
+        for (int row = 0; row < limit; row++) {
+            if (contains((long) row + 1)) {
+                ids.add((long) row + 1);
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public List<Transaction> values() {
+        List<Transaction> values = new ArrayList<>();
+        for (Long id : ids()) {
+            Transaction transaction = get(id);
+            if (transaction != null) {
+                values.add(transaction);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * An account's transactions newest first (creation time, then id), skipping {@code offset} rows.
+     */
+    List<Transaction> newestFirst(Long accountId, long offset, int limit) {
+        Timeline timeline = timelines.get(accountId);
+        return timeline != null ? materializeAll(timeline.newestFirst(offset, limit)) : new ArrayList<>();
+    }
+
+    // An account's transactions strictly older than (createdAt, id), newest first
+    List<Transaction> olderThan(Long accountId, LocalDateTime createdAt, long id, long offset, int limit) {
+        Timeline timeline = timelines.get(accountId);
+        return timeline != null
+                ? materializeAll(timeline.olderThan(micros(createdAt), id, offset, limit))
+                : new ArrayList<>();
+    }
+
+    /**
+     * Writes the live rows below {@code limit} as snapshot sections in the layout of
+     * {@link MockTransactionRepository}, starting a new section every {@link #BLOCK_ROWS} rows. Each row
+     * is copied under its lock; changes made after the limit was captured are also in the journal and
+     * replayed over the snapshot.
+     */
+    void writeSnapshot(SnapshotWriter out, int limit) throws IOException {
+        int count = 0;
+        long[] ids = new long[Math.min(BLOCK_ROWS, Math.min(limit, size.get() + 16))];
+        long[] accountIds = new long[ids.length];
+        long[] createdAt = new long[ids.length];
+        int[] codes = new int[ids.length];
+        BigDecimal[] amounts = new BigDecimal[ids.length];
+        for (int row = 0; row < limit; row++) {
+            if (count == BLOCK_ROWS) {
+                writeBlock(out, count, ids, amounts, codes, accountIds, createdAt);
+                out.nextSection();
+                count = 0;
+            }
+            ReentrantLock lock = stripe(row);
+            lock.lock();
+            try {
+                Chunk chunk = chunkOrNull(row);
+                int i = row & CHUNK_MASK;
+                if (chunk == null || chunk.state[i] != LIVE) {
+                    continue;
+                }
+                if (count == ids.length) {
+                    int grown = Math.min(BLOCK_ROWS, Math.max(16, count * 2));
+                    ids = Arrays.copyOf(ids, grown);
+                    accountIds = Arrays.copyOf(accountIds, grown);
+                    createdAt = Arrays.copyOf(createdAt, grown);
+                    codes = Arrays.copyOf(codes, grown);
+                    amounts = Arrays.copyOf(amounts, grown);
+                }
+                ids[count] = row + 1L;
+                accountIds[count] = chunk.accountIds[i];
+                createdAt[count] = chunk.createdAt[i];
+                codes[count] = chunk.descriptions[i];
+                amounts[count] = amount(chunk, row, row + 1L);
+                count++;
+            } finally {
+                lock.unlock();
+            }
+        }
+        writeBlock(out, count, ids, amounts, codes, accountIds, createdAt);
+    }
+
+    private void writeBlock(SnapshotWriter out, int count, long[] ids, BigDecimal[] amounts, int[] codes,
+                            long[] accountIds, long[] createdAt) throws IOException {
+        String[] dictionary = descriptions;
+        out.writeLongs(count, i -> ids[i]);
+        out.writeDecimals(count, i -> amounts[i]);
+        out.writeDictionary(count, i -> codes[i] >= 0 ? dictionary[codes[i]] : null);
+        out.writeLongs(count, i -> accountIds[i]);
+        out.writeTimes(count, i -> time(createdAt[i]));
+    }
+
+    static Block readBlock(SnapshotReader in) {
+        return new Block(in.readLongs(), in.readDecimals(), in.readDictionaryCodes(), in.readLongs(), in.readTimes());
+    }
+
+    int rowLimit() {
+        return rowLimit.get();
+    }
+
+    /**
+     * Fills the columns straight from decoded snapshot blocks. Blocks hold disjoint rows, so they are
+     * loaded in parallel. Only used while the journal is being opened, before the repository is shared;
+     * returns the highest id loaded.
+     */
+    long load(List<Block> blocks) {
+        long maxId = blocks.parallelStream().mapToLong(this::loadRows).max().orElse(0L);
+
+        // Group each block's ids by account in parallel, then join the groups in block order so every
+        // history arrives nearly sorted and is sorted once
+        List<Map<Long, Timeline>> groups = blocks.parallelStream().map(this::groupByAccount).toList();
+        for (Map<Long, Timeline> group : groups) {
+            group.forEach((accountId, ids) -> timelines.merge(accountId, ids, Timeline::appendAll));
+        }
+        timelines.values().parallelStream().forEach(Timeline::sort);
+        return maxId;
+    }
+
+    private long loadRows(Block block) {
+        int[] codes = new int[block.descriptions().dictionary().length];
+        for (int code = 0; code < codes.length; code++) {
+            codes[code] = descriptionCode(block.descriptions().dictionary()[code]);
+        }
+
+        long[] ids = block.ids();
+        long[] seconds = block.createdAt().seconds();
+        int[] nanos = block.createdAt().nanos();
+        long maxId = 0;
+        for (int r = 0; r < ids.length; r++) {
+            long id = ids[r];
+            int row = row(id);
+            Chunk chunk = chunkFor(row);
+            int i = row & CHUNK_MASK;
+            if (chunk.state[i] == LIVE) {
+                unlink(chunk.accountIds[i], id, chunk.createdAt[i]);
+                overflowAmounts.remove(id);
+            } else {
+                size.incrementAndGet();
+            }
+            chunk.accountIds[i] = block.accountIds()[r];
+            chunk.createdAt[i] = seconds[r] == Long.MIN_VALUE ? NO_TIME : seconds[r] * 1_000_000L + nanos[r] / 1_000;
+            int code = block.descriptions().codes()[r];
+            chunk.descriptions[i] = code >= 0 ? codes[code] : -1;
+            writeAmount(chunk, i, id, block.amounts().get(r));
+            chunk.state[i] = LIVE;
+            maxId = Math.max(maxId, id);
+        }
+        if (maxId > 0) {
+            rowLimit.accumulateAndGet(row(maxId) + 1, Math::max);
+        }
+        return maxId;
+    }
+
+    private Map<Long, Timeline> groupByAccount(Block block) {
+        Map<Long, Timeline> group = new HashMap<>();
+        long[] accountIds = block.accountIds();
+        for (int r = 0; r < accountIds.length; r++) {
+            if (accountIds[r] != 0L) {
+                group.computeIfAbsent(accountIds[r], key -> new Timeline()).append(block.ids()[r]);
+            }
+        }
+        return group;
+    }
+
+    private List<Transaction> materializeAll(long[] ids) {
+        List<Transaction> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            Transaction transaction = get(id);
+            if (transaction != null) {
+                result.add(transaction);
+            }
+        }
+        return result;
+    }
+
+    private Transaction materialize(Chunk chunk, int row, Long id) {
+        int i = row & CHUNK_MASK;
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setAmount(amount(chunk, row, id));
+        int code = chunk.descriptions[i];
+        transaction.setDescription(code >= 0 ? descriptions[code] : null);
+        transaction.setAccount(chunk.accountIds[i] != 0L ? accounts.apply(chunk.accountIds[i]) : null);
+        transaction.setCreatedAt(time(chunk.createdAt[i]));
+        return transaction;
+    }
+
+    private BigDecimal amount(Chunk chunk, int row, long id) {
+        int i = row & CHUNK_MASK;
+        byte scale = chunk.scales[i];
+        if (scale == SnapshotWriter.OVERFLOW_SCALE) {
+            return overflowAmounts.get(id);
+        }
+        return scale == SnapshotWriter.NULL_SCALE ? null : BigDecimal.valueOf(chunk.unscaled[i], scale);
+    }
+
+    private void writeAmount(Chunk chunk, int i, long id, BigDecimal amount) {
+        if (amount == null) {
+            chunk.scales[i] = SnapshotWriter.NULL_SCALE;
+        } else if (amount.unscaledValue().bitLength() < 64 && amount.scale() > SnapshotWriter.NULL_SCALE
+                && amount.scale() < SnapshotWriter.OVERFLOW_SCALE) {
+            chunk.unscaled[i] = amount.unscaledValue().longValue();
+            chunk.scales[i] = (byte) amount.scale();
+        } else {
+            chunk.scales[i] = SnapshotWriter.OVERFLOW_SCALE;
+            overflowAmounts.put(id, amount);
+        }
+    }
+
+    private int descriptionCode(String description) {
+        if (description == null) {
+            return -1;
+        }
+        Integer code = descriptionCodes.get(description);
+        if (code != null) {
+            return code;
+        }
+        return descriptionCodes.computeIfAbsent(description, value -> {
+            synchronized (dictionaryLock) {
+                if (descriptionCount == descriptions.length) {
+                    descriptions = Arrays.copyOf(descriptions, descriptionCount * 2);
+                }
+                descriptions[descriptionCount] = value;
+                return descriptionCount++;
+            }
+        });
+    }
+
+    private void link(long accountId, long id) {
+        if (accountId != 0L) {
+            timelines.computeIfAbsent(accountId, key -> new Timeline()).insert(id);
+        }
+    }
+
+    private void unlink(long accountId, long id, long createdAt) {
+        Timeline timeline = accountId != 0L ? timelines.get(accountId) : null;
+        if (timeline != null) {
+            timeline.remove(id, createdAt);
+        }
+    }
+
+    private long createdAt(long id) {
+        int row = (int) (id - 1);
+        return chunks[row >>> CHUNK_BITS].createdAt[row & CHUNK_MASK];
+    }
+
+    private ReentrantLock stripe(int row) {
+        return stripes[row & (STRIPES - 1)];
+    }
+
+    private static int row(Long id) {
+        if (id == null || id < 1 || id > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Transaction id out of range: " + id);
+        }
+        return (int) (id - 1);
+    }
+
+    private static int rowOrMinusOne(Long id) {
+        return id == null || id < 1 || id > Integer.MAX_VALUE ? -1 : (int) (id - 1);
+    }
+
+    private Chunk chunkOrNull(int row) {
+        Chunk[] current = chunks;
+        int index = row >>> CHUNK_BITS;
+        return index < current.length ? current[index] : null;
+    }
+
+    private Chunk chunkFor(int row) {
+        Chunk chunk = chunkOrNull(row);
+        if (chunk != null) {
+            return chunk;
+        }
+        synchronized (growLock) {
+            int index = row >>> CHUNK_BITS;
+            Chunk[] current = chunks;
+            if (index >= current.length) {
+                current = Arrays.copyOf(current, Math.max(current.length * 2, index + 1));
+            } else if (current[index] != null) {
+                return current[index];
+            } else {
+                current = current.clone();
+            }
+            current[index] = new Chunk();
+            chunks = current;
+            return current[index];
+        }
+    }
+
+    // The rows of one snapshot section, as decoded
+    record Block(long[] ids, SnapshotReader.DecimalColumn amounts, SnapshotReader.DictionaryColumn descriptions,
+                 long[] accountIds, SnapshotReader.TimeColumn createdAt) {
+    }
+
+    private static final class Chunk {
+        final byte[] state = new byte[CHUNK_SIZE];
+        final long[] accountIds = new long[CHUNK_SIZE];
+        final long[] unscaled = new long[CHUNK_SIZE];
+        final byte[] scales = new byte[CHUNK_SIZE];
+        final int[] descriptions = new int[CHUNK_SIZE];
+        final long[] createdAt = new long[CHUNK_SIZE];
+    }
+
+    /**
+     * One account's transaction ids, ascending by (creation time, id). New rows are nearly always the
+     * newest, so an insert is an append followed by at most a few swaps.
+     */
+    private final class Timeline {
+        private long[] ids = new long[8];
+        private int size;
+
+        synchronized void insert(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(8, size * 2));
+            }
+            long time = createdAt(id);
+            int position = size;
+            while (position > 0 && compare(ids[position - 1], time, id) > 0) {
+                ids[position] = ids[position - 1];
+                position--;
+            }
+            ids[position] = id;
+            size++;
+        }
+
+        synchronized void remove(long id, long time) {
+            int position = search(time, id);
+            if (position < size && ids[position] == id) {
+                System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+                size--;
+            }
+        }
+
+        synchronized long[] newestFirst(long offset, int limit) {
+            return before(size, offset, limit);
+        }
+
+        synchronized long[] olderThan(long time, long id, long offset, int limit) {
+            return before(search(time, id), offset, limit);
+        }
+
+        // Up to limit ids below position, newest first, after skipping offset of them
+        private long[] before(int position, long offset, int limit) {
+            int end = (int) (position - Math.min(offset, position));
+            int count = Math.min(limit, end);
+            long[] result = new long[count];
+            for (int k = 0; k < count; k++) {
+                result[k] = ids[end - 1 - k];
+            }
+            return result;
+        }
+
+        // Bulk loading: append unsorted, then sort once
+        synchronized void append(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(8, size * 2));
+            }
+            ids[size++] = id;
+        }
+
+        // Bulk loading: appends another block's ids for the same account
+        synchronized Timeline appendAll(Timeline other) {
+            if (size + other.size > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(ids.length * 2, size + other.size));
+            }
+            System.arraycopy(other.ids, 0, ids, size, other.size);
+            size += other.size;
+            return this;
+        }
+
+        synchronized void sort() {
+            for (int k = 1; k < size; k++) {
+                long id = ids[k];
+                long time = createdAt(id);
+                int position = k;
+                while (position > 0 && compare(ids[position - 1], time, id) > 0) {
+                    ids[position] = ids[position - 1];
+                    position--;
+                }
+                ids[position] = id;
+            }
+            if (ids.length > size + 8) {
+                ids = Arrays.copyOf(ids, size);
+            }
+        }
+
+        // Index of the first id not before (time, id)
+        private int search(long time, long id) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compare(ids[mid], time, id) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int compare(long existing, long time, long id) {
+            int byTime = Long.compare(createdAt(existing), time);
+            return byTime != 0 ? byTime : Long.compare(existing, id);
+        }
+    }
+}
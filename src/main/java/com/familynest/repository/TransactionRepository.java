@@ -1,15 +1,30 @@
-
 package com.familynest.repository;
 
 import com.familynest.model.Account;
 import com.familynest.model.Transaction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     List<Transaction> findByAccount(Account account);
     List<Transaction> findByAccountOrderByCreatedAtDesc(Account account);
+
+    // Newest-first page of an account's history; used for the first page when there is no cursor
+    List<Transaction> findByAccountOrderByCreatedAtDescIdDesc(Account account, Pageable pageable);
+
+    // Keyset page: transactions strictly older than the (createdAt, id) cursor, newest first
+    @Query("SELECT t FROM Transaction t WHERE t.account = :account"
+            + " AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id < :id))"
+            + " ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findByAccountBefore(@Param("account") Account account,
+                                          @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("id") Long id,
+                                          Pageable pageable);
 }
@@ -0,0 +1,114 @@
+package com.familynest.service;
+
+import com.familynest.config.StageMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes balance changes per account with a fixed array of striped locks.
+ * <p>
+ * Writes to the same account always map to the same stripe and run one at a time; writes to
+ * different accounts almost always land on different stripes and run in parallel. When called
+ * inside a Spring-managed transaction the lock is held until the transaction completes, so the
+ * next writer never reads a balance that has not been committed yet. A transaction that touches
+ * several accounts must therefore take them together through {@link #withAccountLocks}. The
+ * {@code @Version} column on {@link com.familynest.model.Account} still catches writers on other nodes.
+ */
+@Component
+public class AccountLockManager {
+
+    @Autowired
+    private StageMetrics stageMetrics;
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public AccountLockManager(@Value("${app.accounts.lock-stripes:1024}") int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1);
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    public <T> T withAccountLock(Long accountId, Supplier<T> action) {
+        ReentrantLock lock = stripes[stripeIndex(accountId)];
+        long start = stageMetrics.start();
+        lock.lock();
+        stageMetrics.stop(StageMetrics.Stage.LOCK_WAIT, start);
+        boolean releaseOnCompletion = false;
+        try {
+            T result = action.get();
+            releaseOnCompletion = releaseAfterTransaction(List.of(lock));
+            return result;
+        } finally {
+            if (!releaseOnCompletion) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Runs the action holding the locks of all given accounts. Stripes are always taken in ascending
+     * stripe order, so two callers locking overlapping sets of accounts can never deadlock.
+     */
+    public <T> T withAccountLocks(Collection<Long> accountIds, Supplier<T> action) {
+        int[] indexes = accountIds.stream()
+                .mapToInt(this::stripeIndex)
+                .distinct()
+                .sorted()
+                .toArray();
+        List<ReentrantLock> held = new ArrayList<>(indexes.length);
+        boolean releaseOnCompletion = false;
+        try {
+            long start = stageMetrics.start();
+            for (int index : indexes) {
+                ReentrantLock lock = stripes[index];
+                lock.lock();
+                held.add(lock);
+            }
+            stageMetrics.stop(StageMetrics.Stage.LOCK_WAIT, start);
+            T result = action.get();
+            releaseOnCompletion = releaseAfterTransaction(held);
+            return result;
+        } finally {
+            if (!releaseOnCompletion) {
+                unlockAll(held);
+            }
+        }
+    }
+
+    int stripeIndex(Long accountId) {
+        long h = accountId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static boolean releaseAfterTransaction(List<ReentrantLock> held) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                unlockAll(held);
+            }
+        });
+        return true;
+    }
+
+    private static void unlockAll(List<ReentrantLock> held) {
+        for (int i = held.size() - 1; i >= 0; i--) {
+            held.get(i).unlock();
+        }
+    }
+}
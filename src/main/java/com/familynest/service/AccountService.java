@@ -1,16 +1,27 @@
 
 package com.familynest.service;
 
+import com.familynest.config.StageMetrics;
+import com.familynest.dto.AccountDto;
+import com.familynest.dto.FamilyAccountDto;
 import com.familynest.model.Account;
 import com.familynest.model.User;
 import com.familynest.repository.AccountRepository;
 import com.familynest.repository.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class AccountService {
@@ -21,24 +32,48 @@ public class AccountService {
     @Autowired
     private UserRepository userRepository;
 
-    public List<Account> getAccountsByUserId(Long userId) {
+    @Autowired
+    private FamilyBalanceService familyBalanceService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private StageMetrics stageMetrics;
+
+    /**
+     * The user's accounts and, for a parent, their children's accounts. Served from the dashboard
+     * projection, so no account entities are loaded.
+     */
+    public List<AccountDto> getAccountsByUserId(Long familyId, Long userId) {
+        return getFamilyAccounts(familyId, userId).stream().map(AccountDto::fromFamilyAccount).toList();
+    }
+
+    /**
+     * Dashboard view of the user's accounts and, for a parent, their children's accounts. The user
+     * must be in the caller's family, or 403; the accounts then take one repository round trip.
+     */
+    public List<FamilyAccountDto> getFamilyAccounts(Long familyId, Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
-        
-        if (user.getRole() == User.Role.PARENT) {
-            // Parents see both their accounts and their children's accounts
-            return accountRepository.findByUserOrUserParent(user, user);
-        } else {
-            // Children see only their accounts
-            return accountRepository.findByUser(user);
+        Long ownFamily = user.getParent() != null ? user.getParent().getId() : user.getId();
+        if (!ownFamily.equals(familyId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not a member of this family");
         }
+        long start = stageMetrics.start();
+        List<FamilyAccountDto> accounts = accountRepository.findFamilyAccounts(userId);
+        stageMetrics.stop(StageMetrics.Stage.ACCOUNT_LIST, start);
+        return accounts;
     }
 
     public Account getAccountById(Long id) {
-        return accountRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Account not found"));
+        long start = stageMetrics.start();
+        Optional<Account> account = accountRepository.findById(id);
+        stageMetrics.stop(StageMetrics.Stage.ACCOUNT_FIND, start);
+        return account.orElseThrow(() -> new EntityNotFoundException("Account not found"));
     }
 
+    @Transactional
     public Account createAccount(Long userId, String name, boolean isParentAccount) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
@@ -61,12 +96,24 @@ public class AccountService {
                     .ifPresent(account::setParentAccount);
         }
         
-        return accountRepository.save(account);
+        Account saved = stageMetrics.time(StageMetrics.Stage.ACCOUNT_SAVE, () -> accountRepository.save(account));
+        familyBalanceService.onBalanceChanged(saved);
+        outboxService.accountCreated(saved);
+        return saved;
+    }
+
+    public Map<Long, Account> getAccountsById(Collection<Long> ids) {
+        return stageMetrics.time(StageMetrics.Stage.ACCOUNT_FIND, () -> accountRepository.findAllById(ids)).stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
     }
 
-    public void updateAccountBalance(Long accountId, BigDecimal amount) {
+    // Read-modify-write of the balance; callers must hold the account's lock from AccountLockManager
+    public Account updateAccountBalance(Long accountId, BigDecimal amount) {
         Account account = getAccountById(accountId);
         account.setBalance(account.getBalance().add(amount));
-        accountRepository.save(account);
+        long start = stageMetrics.start();
+        Account saved = accountRepository.save(account);
+        stageMetrics.stop(StageMetrics.Stage.ACCOUNT_SAVE, start);
+        return saved;
     }
 }
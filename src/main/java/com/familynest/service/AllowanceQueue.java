@@ -0,0 +1,57 @@
+package com.familynest.service;
+
+import com.familynest.model.AllowanceRule;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Pending allowance payments ordered by due time, so a scheduler tick only touches the rules that
+ * are actually due instead of scanning every rule. Entries are not removed when a rule changes;
+ * {@link AllowanceService#runDue} skips any entry whose due time no longer matches the rule.
+ */
+@Component
+public class AllowanceQueue {
+
+    private final ConcurrentSkipListSet<DueRun> queue = new ConcurrentSkipListSet<>(
+            Comparator.comparing(DueRun::dueAt).thenComparing(DueRun::ruleId));
+
+    public void schedule(AllowanceRule rule) {
+        if (rule.isActive()) {
+            queue.add(new DueRun(rule.getId(), rule.getFromAccount().getId(), rule.getNextRunAt()));
+        }
+    }
+
+    public void schedule(DueRun run) {
+        queue.add(run);
+    }
+
+    // Removes and returns up to max entries due at or before now, earliest first
+    public List<DueRun> pollDue(LocalDateTime now, int max) {
+        List<DueRun> due = new ArrayList<>();
+        while (due.size() < max) {
+            // Taken atomically, so concurrent pollers never see the head vanish between a check and a read
+            DueRun head = queue.pollFirst();
+            if (head == null) {
+                break;
+            }
+            if (head.dueAt().isAfter(now)) {
+                queue.add(head);
+                break;
+            }
+            due.add(head);
+        }
+        return due;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    public record DueRun(Long ruleId, Long fromAccountId, LocalDateTime dueAt) {
+    }
+}
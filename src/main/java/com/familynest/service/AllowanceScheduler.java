@@ -0,0 +1,84 @@
+package com.familynest.service;
+
+import com.familynest.config.WorkerPool;
+import com.familynest.model.AllowanceRule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Collectors;
+
+/**
+ * Pays recurring allowances. Each tick drains the due entries from {@link AllowanceQueue} in
+ * batches and pays them in parallel, one task per paying account: rules sharing a parent account
+ * contend for the same lock anyway, while different families proceed independently.
+ */
+@Component
+public class AllowanceScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(AllowanceScheduler.class);
+
+    @Autowired
+    private AllowanceService allowanceService;
+
+    @Autowired
+    private AllowanceQueue allowanceQueue;
+
+    @Autowired
+    @Qualifier("allowancePool")
+    private WorkerPool<ThreadPoolExecutor> allowancePool;
+
+    @Value("${app.allowances.batch-size:1000}")
+    private int batchSize;
+
+    // Rebuilds the in-memory queue from the persisted rules; nextRunAt is the source of truth
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRules() {
+        allowanceService.getActiveRules().forEach(allowanceQueue::schedule);
+    }
+
+    @Scheduled(fixedDelayString = "${app.allowances.poll-interval-ms:60000}")
+    public void runDueAllowances() {
+        LocalDateTime now = LocalDateTime.now();
+        // Failed payments are retried on the next tick rather than spinning inside this one
+        Queue<AllowanceQueue.DueRun> retries = new ConcurrentLinkedQueue<>();
+
+        List<AllowanceQueue.DueRun> batch;
+        while (!(batch = allowanceQueue.pollDue(now, batchSize)).isEmpty()) {
+            Map<Long, List<AllowanceQueue.DueRun>> byPayer = batch.stream()
+                    .collect(Collectors.groupingBy(AllowanceQueue.DueRun::fromAccountId));
+            CompletableFuture<?>[] tasks = byPayer.values().stream()
+                    .map(runs -> CompletableFuture.runAsync(() -> pay(runs, now, retries), allowancePool.executor()))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(tasks).join();
+        }
+        retries.forEach(allowanceQueue::schedule);
+    }
+
+    private void pay(List<AllowanceQueue.DueRun> runs, LocalDateTime now, Queue<AllowanceQueue.DueRun> retries) {
+        for (AllowanceQueue.DueRun run : runs) {
+            try {
+                AllowanceRule advanced = allowanceService.runDue(run.ruleId(), run.fromAccountId(), run.dueAt(), now);
+                if (advanced != null) {
+                    allowanceQueue.schedule(advanced);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Allowance rule {} due at {} failed, retrying next tick", run.ruleId(), run.dueAt(), e);
+                retries.add(run);
+            }
+        }
+    }
+}
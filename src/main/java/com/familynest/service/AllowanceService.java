@@ -0,0 +1,202 @@
+package com.familynest.service;
+
+import com.familynest.dto.AllowanceRuleRequest;
+import com.familynest.model.Account;
+import com.familynest.model.AllowanceRule;
+import com.familynest.model.Transaction;
+import com.familynest.model.User;
+import com.familynest.repository.AllowanceRuleRepository;
+import com.familynest.repository.TransactionRepository;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Recurring allowances from a parent account to one of its child accounts. Rules are listed within
+ * the caller's family, and only the family's parent, whose user id is the family id, creates or
+ * cancels them; anything else is refused with 403.
+ */
+@Service
+public class AllowanceService {
+
+    private static final int POSTED_CHECK_PAGE_SIZE = 50;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Autowired
+    private AllowanceRuleRepository allowanceRuleRepository;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountLockManager accountLockManager;
+
+    @Autowired
+    private AllowanceQueue allowanceQueue;
+
+    public AllowanceRule createRule(Long familyId, AllowanceRuleRequest request) {
+        if (request.getFromAccountId() == null || request.getToAccountId() == null || request.getFrequency() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "fromAccountId, toAccountId and frequency are required");
+        }
+        if (request.getAmount() == null || request.getAmount().signum() <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "amount must be positive");
+        }
+
+        Account from = accountService.getAccountById(request.getFromAccountId());
+        Account to = accountService.getAccountById(request.getToAccountId());
+        checkPayer(familyId, from);
+        checkFamily(familyId, to.getUser());
+        if (to.getParentAccount() == null || !Objects.equals(to.getParentAccount().getId(), from.getId())) {
+            throw new RuntimeException("Allowances can only be paid from a child account's parent account");
+        }
+
+        AllowanceRule rule = new AllowanceRule();
+        rule.setFromAccount(from);
+        rule.setToAccount(to);
+        rule.setAmount(request.getAmount());
+        rule.setFrequency(request.getFrequency());
+        rule.setAnchorAt(request.getFirstRunAt() != null ? request.getFirstRunAt() : LocalDateTime.now());
+        rule.setNextRunAt(rule.getAnchorAt());
+        rule.setActive(true);
+
+        AllowanceRule saved = allowanceRuleRepository.save(rule);
+        allowanceQueue.schedule(saved);
+        return saved;
+    }
+
+    public List<AllowanceRule> getRulesByAccountId(Long familyId, Long accountId) {
+        Account account = accountService.getAccountById(accountId);
+        checkFamily(familyId, account.getUser());
+        return allowanceRuleRepository.findByFromAccountOrToAccount(account, account);
+    }
+
+    // Stops future payments; a queued entry for the rule is skipped when it comes due
+    public AllowanceRule cancelRule(Long familyId, Long ruleId) {
+        AllowanceRule rule = allowanceRuleRepository.findById(ruleId)
+                .orElseThrow(() -> new EntityNotFoundException("Allowance rule not found"));
+        checkPayer(familyId, rule.getFromAccount());
+        rule.setActive(false);
+        return allowanceRuleRepository.save(rule);
+    }
+
+    public List<AllowanceRule> getActiveRules() {
+        return allowanceRuleRepository.findByActiveTrue();
+    }
+
+    /**
+     * Pays one due allowance: debits the parent account, credits the child account and advances the
+     * rule. The rule is re-read under both account locks and skipped unless it is still due at
+     * {@code dueAt}, which makes duplicate or stale queue entries harmless. After downtime the missed
+     * window is paid once and the rule moves to its first due time after {@code now}.
+     * <p>
+     * With a database all of this is one commit. The in-memory journal writes each row as its own
+     * record, so a crash can leave a payment recorded but the rule not advanced, or only one leg
+     * written. Before posting, the rule is saved with a random run id, which goes into the legs'
+     * descriptions. A retry that finds the run id already set looks for those rows and posts only a
+     * missing leg, so it completes the payment instead of repeating it. Clients never see a run id
+     * before its rows exist, so a row they write cannot pass for a leg. A crash between a balance
+     * update and its transaction row is not covered; that gap applies to every journaled transaction.
+     *
+     * @return the advanced rule to queue again, or null when nothing was paid
+     */
+    @Transactional
+    public AllowanceRule runDue(Long ruleId, Long fromAccountId, LocalDateTime dueAt, LocalDateTime now) {
+        AllowanceRule current = allowanceRuleRepository.findById(ruleId).orElse(null);
+        if (current == null) {
+            return null;
+        }
+        Long toAccountId = current.getToAccount().getId();
+
+        return accountLockManager.withAccountLocks(List.of(fromAccountId, toAccountId), () -> {
+            AllowanceRule rule = allowanceRuleRepository.findById(ruleId).orElse(null);
+            if (rule == null || !rule.isActive() || !dueAt.equals(rule.getNextRunAt())) {
+                return null;
+            }
+
+            // An earlier attempt at this payment got as far as saving its run id, and may have posted a leg
+            boolean retry = rule.getRunId() != null;
+            if (!retry) {
+                rule.setRunId(newRunId());
+                rule = allowanceRuleRepository.save(rule);
+            }
+            String description = (rule.getFrequency() == AllowanceRule.Frequency.WEEKLY ? "Weekly" : "Monthly")
+                    + " allowance " + dueAt.toLocalDate() + " (rule " + ruleId + ", run " + rule.getRunId() + ")";
+            boolean debited = retry && isPosted(fromAccountId, description, dueAt);
+            boolean credited = retry && isPosted(toAccountId, description, dueAt);
+            if (!debited && !credited) {
+                transferService.applyTransfer(fromAccountId, toAccountId, rule.getAmount(), description);
+            } else {
+                // Completes a payment a crash interrupted
+                if (!debited) {
+                    transactionService.applyTransaction(fromAccountId, rule.getAmount().negate(), description);
+                }
+                if (!credited) {
+                    transactionService.applyTransaction(toAccountId, rule.getAmount(), description);
+                }
+            }
+
+            rule.setLastRunAt(dueAt);
+            rule.setNextRunAt(rule.getFrequency().firstAfter(rule.getAnchorAt(), now.isAfter(dueAt) ? now : dueAt));
+            rule.setRunId(null);
+            return allowanceRuleRepository.save(rule);
+        });
+    }
+
+    private static String newRunId() {
+        byte[] bytes = new byte[8];
+        RANDOM.nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    private static void checkPayer(Long familyId, Account from) {
+        if (!familyId.equals(from.getUser().getId())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not the parent paying this allowance");
+        }
+    }
+
+    private static void checkFamily(Long familyId, User user) {
+        Long ownFamily = user.getParent() != null ? user.getParent().getId() : user.getId();
+        if (!ownFamily.equals(familyId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not a member of this family");
+        }
+    }
+
+    // Whether the account has a row with the description; payments for dueAt cannot be older than it
+    private boolean isPosted(Long accountId, String description, LocalDateTime dueAt) {
+        Account account = accountService.getAccountById(accountId);
+        PageRequest page = PageRequest.of(0, POSTED_CHECK_PAGE_SIZE);
+        List<Transaction> transactions = transactionRepository.findByAccountOrderByCreatedAtDescIdDesc(account, page);
+        while (!transactions.isEmpty()) {
+            for (Transaction transaction : transactions) {
+                if (transaction.getCreatedAt().isBefore(dueAt)) {
+                    return false;
+                }
+                if (description.equals(transaction.getDescription())) {
+                    return true;
+                }
+            }
+            Transaction oldest = transactions.get(transactions.size() - 1);
+            transactions = transactionRepository.findByAccountBefore(account, oldest.getCreatedAt(), oldest.getId(), page);
+        }
+        return false;
+    }
+}
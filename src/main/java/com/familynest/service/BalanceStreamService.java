@@ -0,0 +1,308 @@
+package com.familynest.service;
+
+import com.familynest.config.WorkerPool;
+import com.familynest.dto.BalanceEventDto;
+import com.familynest.dto.TransactionDto;
+import com.familynest.model.Account;
+import com.familynest.model.OutboxEvent;
+import com.familynest.model.User;
+import com.familynest.repository.AccountRepository;
+import com.familynest.repository.UserRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes balance and transaction events to subscribed clients as server-sent events.
+ * <p>
+ * Events come from the outbox. Subscribers are grouped by family: a parent receives events for every
+ * account in the family, a child only for their own. Each subscriber buffers its events and is flushed
+ * once the coalescing delay has passed, so a burst of updates to one account is sent as a single
+ * balance. A subscriber that falls further behind than {@code app.push.max-pending-events} loses its
+ * buffered transactions and is sent {@code resync}, which tells the client to reload once instead of
+ * the server queueing without bound.
+ * <p>
+ * {@code pushPool} only keeps time; the blocking writes run on {@code pushWriterPool}. A flush still
+ * writing after {@code app.push.send-timeout-ms} is interrupted and its subscriber dropped, so a client
+ * that stops reading ties up one writer for that long at most and takes no further events.
+ */
+@Service
+public class BalanceStreamService implements DomainEventConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceStreamService.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    @Qualifier("pushPool")
+    private WorkerPool<ScheduledThreadPoolExecutor> pushPool;
+
+    @Autowired
+    @Qualifier("pushWriterPool")
+    private WorkerPool<ThreadPoolExecutor> pushWriterPool;
+
+    @Value("${app.push.coalesce-ms:100}")
+    private long coalesceMillis;
+
+    @Value("${app.push.max-pending-events:256}")
+    private int maxPendingEvents;
+
+    @Value("${app.push.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    @Value("${app.push.send-timeout-ms:5000}")
+    private long sendTimeoutMillis;
+
+    private final ConcurrentMap<Long, Set<Subscriber>> families = new ConcurrentHashMap<>();
+
+    /**
+     * Opens a stream for the signed-in user. The current balance of every visible account is sent
+     * first, so the client needs no initial poll.
+     */
+    public SseEmitter subscribe(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        boolean parent = user.getRole() == User.Role.PARENT;
+        Long familyId = familyIdOf(user);
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(familyId, user.getId(), parent, emitter);
+        families.computeIfAbsent(familyId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+
+        List<Account> accounts = parent ? accountRepository.findByUserOrUserParent(user, user) : accountRepository.findByUser(user);
+        for (Account account : accounts) {
+            subscriber.offerBalance(BalanceEventDto.fromEntity(account));
+        }
+        return emitter;
+    }
+
+    @Override
+    public void onEvents(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            Set<Subscriber> subscribers = families.get(event.getFamilyId());
+            if (subscribers == null) {
+                continue;
+            }
+            switch (event.getType()) {
+                case TRANSACTION_CREATED -> {
+                    TransactionDto transaction = new TransactionDto(event.getTransactionId(), event.getAmount(),
+                            event.getDescription(), event.getAccountId(), event.getOccurredAt());
+                    subscribers.stream()
+                            .filter(subscriber -> subscriber.sees(event.getUserId()))
+                            .forEach(subscriber -> subscriber.offerTransaction(transaction));
+                }
+                case BALANCE_CHANGED, ACCOUNT_CREATED -> {
+                    BalanceEventDto balance = new BalanceEventDto(event.getAccountId(), event.getUserId(), event.getBalance());
+                    subscribers.stream()
+                            .filter(subscriber -> subscriber.sees(event.getUserId()))
+                            .forEach(subscriber -> subscriber.offerBalance(balance));
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    // Keeps idle connections open through proxies and finds clients that went away
+    @Scheduled(fixedDelayString = "${app.push.heartbeat-ms:15000}")
+    public void sendHeartbeats() {
+        families.values().forEach(subscribers -> subscribers.forEach(Subscriber::heartbeat));
+    }
+
+    public int subscriberCount() {
+        return families.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        families.computeIfPresent(subscriber.familyId, (id, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    private static Long familyIdOf(User user) {
+        return user.getParent() != null ? user.getParent().getId() : user.getId();
+    }
+
+    private final class Subscriber {
+        private final Long familyId;
+        private final Long userId;
+        private final boolean parent;
+        private final SseEmitter emitter;
+
+        // Guarded by this; a flush is scheduled or running exactly when flushing is set
+        private final ArrayDeque<TransactionDto> transactions = new ArrayDeque<>();
+        private final Map<Long, BalanceEventDto> balances = new LinkedHashMap<>();
+        private boolean resync;
+        private boolean heartbeat;
+        private boolean flushing;
+        private boolean closed;
+        // The thread writing a flush and the deadline for it, while one is being written
+        private Thread writer;
+        private ScheduledFuture<?> deadline;
+
+        Subscriber(Long familyId, Long userId, boolean parent, SseEmitter emitter) {
+            this.familyId = familyId;
+            this.userId = userId;
+            this.parent = parent;
+            this.emitter = emitter;
+        }
+
+        boolean sees(Long ownerId) {
+            return parent || userId.equals(ownerId);
+        }
+
+        synchronized void offerTransaction(TransactionDto transaction) {
+            if (closed) {
+                return;
+            }
+            if (transactions.size() == maxPendingEvents) {
+                transactions.clear();
+                resync = true;
+            }
+            if (!resync) {
+                transactions.add(transaction);
+            }
+            scheduleFlush(coalesceMillis);
+        }
+
+        synchronized void offerBalance(BalanceEventDto balance) {
+            if (closed) {
+                return;
+            }
+            // Only the latest balance of an account is worth sending
+            balances.remove(balance.getAccountId());
+            balances.put(balance.getAccountId(), balance);
+            scheduleFlush(coalesceMillis);
+        }
+
+        synchronized void heartbeat() {
+            if (!closed) {
+                heartbeat = true;
+                scheduleFlush(0);
+            }
+        }
+
+        private void scheduleFlush(long delayMillis) {
+            if (!flushing) {
+                flushing = true;
+                pushPool.executor().schedule(() -> pushWriterPool.executor().execute(this::flush),
+                        delayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void flush() {
+            List<TransactionDto> sendTransactions;
+            List<BalanceEventDto> sendBalances;
+            boolean sendResync;
+            boolean sendHeartbeat;
+            synchronized (this) {
+                sendTransactions = new ArrayList<>(transactions);
+                sendBalances = new ArrayList<>(balances.values());
+                sendResync = resync;
+                sendHeartbeat = heartbeat && sendTransactions.isEmpty() && sendBalances.isEmpty() && !sendResync;
+                transactions.clear();
+                balances.clear();
+                resync = false;
+                heartbeat = false;
+                if (closed) {
+                    flushing = false;
+                    return;
+                }
+                writer = Thread.currentThread();
+                deadline = pushPool.executor().schedule(this::sendTimedOut, sendTimeoutMillis, TimeUnit.MILLISECONDS);
+            }
+
+            try {
+                if (sendResync) {
+                    emitter.send(SseEmitter.event().name("resync").data(""));
+                }
+                for (TransactionDto transaction : sendTransactions) {
+                    emitter.send(SseEmitter.event().name("transaction").data(transaction));
+                }
+                for (BalanceEventDto balance : sendBalances) {
+                    emitter.send(SseEmitter.event().name("balance").data(balance));
+                }
+                if (sendHeartbeat) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping event stream of user {}: {}", userId, e.toString());
+                synchronized (this) {
+                    finishWrite();
+                    closed = true;
+                    flushing = false;
+                }
+                emitter.completeWithError(e);
+                return;
+            }
+
+            boolean timedOut;
+            synchronized (this) {
+                finishWrite();
+                timedOut = closed;
+                flushing = false;
+            }
+            if (timedOut) {
+                emitter.complete();
+                return;
+            }
+
+            synchronized (this) {
+                // Whatever arrived while sending waits one more coalescing delay
+                if (!transactions.isEmpty() || !balances.isEmpty() || resync) {
+                    scheduleFlush(coalesceMillis);
+                }
+            }
+        }
+
+        // Called with the lock held once the writes are over; an interrupt meant for them must not outlive them
+        private void finishWrite() {
+            writer = null;
+            deadline.cancel(false);
+            Thread.interrupted();
+        }
+
+        // Runs on pushPool. Never touches the emitter, whose writes this thread would otherwise wait behind.
+        private void sendTimedOut() {
+            synchronized (this) {
+                if (writer == null) {
+                    return;
+                }
+                closed = true;
+                transactions.clear();
+                balances.clear();
+                writer.interrupt();
+            }
+            log.debug("Dropping event stream of user {}: no write completed within {} ms", userId, sendTimeoutMillis);
+            unsubscribe(this);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.familynest.service;
+
+import com.familynest.model.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Receives committed domain events from the outbox on the dispatcher thread, in id order as far as
+ * they have committed: an event that commits after one with a higher id was delivered comes later,
+ * so the newest id seen does not cover every lower one. Delivery is at least once: if a consumer
+ * throws, the events of the batch are delivered to it again, one at a time, and the event it keeps
+ * failing on is eventually skipped (see {@link OutboxDispatcher}).
+ */
+public interface DomainEventConsumer {
+    void onEvents(List<OutboxEvent> events);
+}
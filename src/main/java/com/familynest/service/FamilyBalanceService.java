@@ -0,0 +1,102 @@
+package com.familynest.service;
+
+import com.familynest.dto.FamilyAccountDto;
+import com.familynest.dto.FamilyBalanceDto;
+import com.familynest.model.Account;
+import com.familynest.model.User;
+import com.familynest.repository.AccountRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Maintains per-family balance totals so dashboards read precomputed numbers instead of summing
+ * accounts on every refresh.
+ * <p>
+ * A family is built from the repository the first time it is read and then kept current by
+ * {@link #onBalanceChanged}. Updates carry the account's new absolute balance rather than a delta,
+ * so an update that races with the initial build is applied at most once.
+ */
+@Service
+public class FamilyBalanceService {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    private final ConcurrentMap<Long, FamilyTotals> families = new ConcurrentHashMap<>();
+
+    // Takes the caller's family id, so nobody reads another family's balances
+    public FamilyBalanceDto getFamilyBalance(Long familyId) {
+        return families.computeIfAbsent(familyId, this::build).toDto(familyId);
+    }
+
+    /**
+     * Records the account's current balance. Must be called while holding the account's lock, so
+     * updates for one account arrive in order; deferred until commit inside a transaction.
+     */
+    public void onBalanceChanged(Account account) {
+        Long familyId = familyIdOf(account.getUser());
+        Long userId = account.getUser().getId();
+        Long accountId = account.getId();
+        BigDecimal balance = account.getBalance();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(familyId, userId, accountId, balance);
+                }
+            });
+        } else {
+            apply(familyId, userId, accountId, balance);
+        }
+    }
+
+    private void apply(Long familyId, Long userId, Long accountId, BigDecimal balance) {
+        // Families nobody has read yet are skipped; they are built from the repository on first read
+        families.computeIfPresent(familyId, (id, totals) -> {
+            totals.setBalance(userId, accountId, balance);
+            return totals;
+        });
+    }
+
+    private FamilyTotals build(Long familyId) {
+        FamilyTotals totals = new FamilyTotals();
+        for (FamilyAccountDto account : accountRepository.findFamilyAccounts(familyId)) {
+            totals.setBalance(account.getUserId(), account.getId(), account.getBalance());
+        }
+        return totals;
+    }
+
+    private static Long familyIdOf(User user) {
+        return user.getParent() != null ? user.getParent().getId() : user.getId();
+    }
+
+    private static final class FamilyTotals {
+        private final AtomicReference<BigDecimal> total = new AtomicReference<>(BigDecimal.ZERO);
+        private final ConcurrentMap<Long, BigDecimal> memberTotals = new ConcurrentHashMap<>();
+        private final ConcurrentMap<Long, BigDecimal> accountBalances = new ConcurrentHashMap<>();
+
+        void setBalance(Long userId, Long accountId, BigDecimal balance) {
+            BigDecimal previous = accountBalances.put(accountId, balance);
+            BigDecimal delta = previous != null ? balance.subtract(previous) : balance;
+            memberTotals.merge(userId, delta, BigDecimal::add);
+            if (delta.signum() != 0) {
+                total.accumulateAndGet(delta, BigDecimal::add);
+            }
+        }
+
+        FamilyBalanceDto toDto(Long familyId) {
+            Map<Long, BigDecimal> members = new TreeMap<>(memberTotals);
+            Map<Long, BigDecimal> accounts = new TreeMap<>(accountBalances);
+            return new FamilyBalanceDto(familyId, total.get(), members, accounts);
+        }
+    }
+}
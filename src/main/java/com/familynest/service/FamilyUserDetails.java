@@ -0,0 +1,27 @@
+package com.familynest.service;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Security principal that also carries the id of the user's family (the parent's id, or the user's
+ * own id for a parent), so per-family decisions need no repository read on each request.
+ */
+public class FamilyUserDetails extends User {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long familyId;
+
+    public FamilyUserDetails(String username, String password, Collection<? extends GrantedAuthority> authorities,
+                             Long familyId) {
+        super(username, password, authorities);
+        this.familyId = familyId;
+    }
+
+    public Long getFamilyId() {
+        return familyId;
+    }
+}
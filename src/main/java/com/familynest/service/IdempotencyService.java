@@ -0,0 +1,125 @@
+package com.familynest.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the result of requests sent with an {@code Idempotency-Key} header, so a client retrying
+ * after a timeout gets the original response instead of having the work done twice.
+ * <p>
+ * Keys are scoped by the caller and the endpoint, and the store is bounded by
+ * {@code app.idempotency.max-keys} and {@code app.idempotency.ttl}. Only successful results are kept: a
+ * failed request releases its key, so the retry runs again. A duplicate that arrives while the
+ * original is still running is answered with 409 rather than parked on a thread, and reusing a key
+ * for a different request is answered with 422. Requests that are large or hold secrets are passed
+ * as a {@link #digest} rather than as they are, so the store stays bounded by the number of keys.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final Cache<Key, Entry> results;
+
+    public IdempotencyService(@Value("${app.idempotency.max-keys:100000}") long maxKeys,
+                              @Value("${app.idempotency.ttl:PT24H}") Duration ttl) {
+        this.results = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Runs the action once per key. {@code request} identifies what was asked for and must be equal
+     * on every retry; without a key the action simply runs.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String scope, String idempotencyKey, Object request, Supplier<T> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+
+        Key key = new Key(scope, idempotencyKey);
+        Entry entry = new Entry(request, new CompletableFuture<>());
+        Entry existing = results.asMap().putIfAbsent(key, entry);
+        if (existing != null) {
+            return (T) replay(existing, request);
+        }
+
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException | Error e) {
+            results.asMap().remove(key, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+        entry.result.complete(result);
+        return result;
+    }
+
+    /**
+     * A SHA-256 digest of the parts in order, to stand in for the request. Each part is written with
+     * its length, so different splits of the same text and null and "null" give different digests.
+     */
+    public static String digest(List<?> parts) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        for (Object part : parts) {
+            byte[] bytes = part != null ? part.toString().getBytes(StandardCharsets.UTF_8) : null;
+            int length = bytes != null ? bytes.length : -1;
+            digest.update(new byte[] {(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+            if (bytes != null) {
+                digest.update(bytes);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static Object replay(Entry existing, Object request) {
+        if (!Objects.equals(existing.request, request)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used for a different request");
+        }
+        if (!existing.result.isDone()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "A request with this Idempotency-Key is still being processed");
+        }
+        try {
+            return existing.result.join();
+        } catch (CompletionException e) {
+            // The original failed after this duplicate found it; the key is free again for the next retry
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "The request with this Idempotency-Key failed; retry it");
+        }
+    }
+
+    private record Key(String scope, String idempotencyKey) {
+    }
+
+    private record Entry(Object request, CompletableFuture<Object> result) {
+    }
+}
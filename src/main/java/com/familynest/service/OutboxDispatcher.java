@@ -0,0 +1,203 @@
+package com.familynest.service;
+
+import com.familynest.config.WorkerPool;
+import com.familynest.model.OutboxEvent;
+import com.familynest.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Drains the outbox to the {@link DomainEventConsumer}s, oldest first and in batches, on a single
+ * background thread. An event is deleted only after every consumer has taken it, so it survives a
+ * crash or a failing consumer and is delivered again. Drains start when a commit adds events and on
+ * a poll, which also picks up whatever was left from before a restart.
+ * <p>
+ * Ids are assigned before commit, so an event can become visible after one with a higher id was
+ * already delivered. Each consumer's progress is therefore tracked as the ids it has taken rather than
+ * as the newest id, and a late event is delivered with whichever batch finds it. A failing consumer
+ * does not make the others see a batch twice. A consumer that throws is given the batch again one event at a time, and only the
+ * event that fails is held back for the next poll. After {@code app.outbox.max-attempts} failures
+ * that event is parked in {@link #deadLetters()} and skipped for that consumer, so one bad event
+ * cannot stop the outbox.
+ */
+@Service
+public class OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private static final int MAX_DEAD_LETTERS = 1000;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    // Looked up per drain; the consumers depend on services that record events through this dispatcher
+    @Autowired
+    private ObjectProvider<DomainEventConsumer> consumers;
+
+    @Autowired
+    @Qualifier("outboxPool")
+    private WorkerPool<ThreadPoolExecutor> outboxPool;
+
+    @Value("${app.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    // Only used on the dispatcher thread: the ids each consumer has taken of events still in the outbox,
+    // and its current failure
+    private final Map<DomainEventConsumer, Set<Long>> delivered = new HashMap<>();
+    private final Map<DomainEventConsumer, Failure> failures = new HashMap<>();
+    // Guarded by itself; the oldest are dropped beyond MAX_DEAD_LETTERS
+    private final Deque<DeadLetter> deadLetters = new ArrayDeque<>();
+
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    // Set when a batch fails; commits then leave the retry to the next poll instead of failing again at once
+    private volatile boolean backingOff;
+    private volatile boolean stopped;
+
+    public void wake() {
+        if (!stopped && !backingOff && drainScheduled.compareAndSet(false, true)) {
+            outboxPool.executor().execute(this::drain);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        backingOff = false;
+        wake();
+    }
+
+    // Published before any bean is destroyed; undelivered events stay in the outbox for the next start
+    @EventListener(ContextClosedEvent.class)
+    public void stop() {
+        stopped = true;
+    }
+
+    private void drain() {
+        // Cleared first: events committed from here on schedule another drain
+        drainScheduled.set(false);
+        if (stopped) {
+            return;
+        }
+        List<DomainEventConsumer> targets = consumers.orderedStream().toList();
+        while (!stopped) {
+            List<OutboxEvent> batch = outboxEventRepository.findByOrderByIdAsc(PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                return;
+            }
+            boolean complete = true;
+            for (DomainEventConsumer consumer : targets) {
+                if (!deliver(consumer, batch)) {
+                    complete = false;
+                }
+            }
+            List<OutboxEvent> done = batch.stream()
+                    .filter(event -> targets.stream().allMatch(consumer -> taken(consumer).contains(event.getId())))
+                    .toList();
+            if (!done.isEmpty()) {
+                outboxEventRepository.deleteAllInBatch(done);
+                for (DomainEventConsumer consumer : targets) {
+                    done.forEach(event -> taken(consumer).remove(event.getId()));
+                }
+            }
+            if (!complete) {
+                backingOff = true;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Events that a consumer failed on {@code app.outbox.max-attempts} times and that were skipped for
+     * it, oldest first. Kept in memory only; each is also logged.
+     */
+    public List<DeadLetter> deadLetters() {
+        synchronized (deadLetters) {
+            return new ArrayList<>(deadLetters);
+        }
+    }
+
+    // Hands the consumer the events of the batch it has not taken yet; false if some are left for the next poll
+    private boolean deliver(DomainEventConsumer consumer, List<OutboxEvent> batch) {
+        Set<Long> taken = taken(consumer);
+        List<OutboxEvent> events = batch.stream().filter(event -> !taken.contains(event.getId())).toList();
+        if (events.isEmpty()) {
+            return true;
+        }
+        try {
+            consumer.onEvents(events);
+            events.forEach(event -> taken.add(event.getId()));
+            failures.remove(consumer);
+            return true;
+        } catch (RuntimeException e) {
+            log.debug("Outbox events {}..{} failed in {}; retrying one at a time", events.get(0).getId(),
+                    events.get(events.size() - 1).getId(), name(consumer), e);
+        }
+        for (OutboxEvent event : events) {
+            try {
+                consumer.onEvents(List.of(event));
+                failures.remove(consumer);
+            } catch (RuntimeException e) {
+                Failure previous = failures.get(consumer);
+                int attempts = previous != null && previous.eventId().equals(event.getId()) ? previous.attempts() + 1 : 1;
+                if (attempts < maxAttempts) {
+                    failures.put(consumer, new Failure(event.getId(), attempts));
+                    log.warn("Outbox event {} failed in {} (attempt {} of {}); retrying on the next poll",
+                            event.getId(), name(consumer), attempts, maxAttempts, e);
+                    return false;
+                }
+                failures.remove(consumer);
+                log.error("Outbox event {} failed in {} {} times; parked as a dead letter",
+                        event.getId(), name(consumer), attempts, e);
+                park(new DeadLetter(event, name(consumer), e.toString()));
+            }
+            taken.add(event.getId());
+        }
+        return true;
+    }
+
+    private Set<Long> taken(DomainEventConsumer consumer) {
+        return delivered.computeIfAbsent(consumer, key -> new HashSet<>());
+    }
+
+    private void park(DeadLetter deadLetter) {
+        synchronized (deadLetters) {
+            if (deadLetters.size() == MAX_DEAD_LETTERS) {
+                deadLetters.removeFirst();
+            }
+            deadLetters.addLast(deadLetter);
+        }
+    }
+
+    private static String name(DomainEventConsumer consumer) {
+        return ClassUtils.getUserClass(consumer).getSimpleName();
+    }
+
+    public record DeadLetter(OutboxEvent event, String consumer, String error) {
+    }
+
+    private record Failure(Long eventId, int attempts) {
+    }
+}
@@ -0,0 +1,102 @@
+package com.familynest.service;
+
+import com.familynest.config.StageMetrics;
+import com.familynest.model.Account;
+import com.familynest.model.OutboxEvent;
+import com.familynest.model.Transaction;
+import com.familynest.model.User;
+import com.familynest.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Records domain events in the outbox. Call from inside the transaction that makes the change, so
+ * the event is committed with it or not at all; {@link OutboxDispatcher} is woken after the commit.
+ */
+@Service
+public class OutboxService {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private StageMetrics stageMetrics;
+
+    public void transactionCreated(Transaction transaction) {
+        record(List.of(transactionCreatedEvent(transaction)));
+    }
+
+    public void transactionsCreated(List<Transaction> transactions) {
+        record(transactions.stream().map(OutboxService::transactionCreatedEvent).toList());
+    }
+
+    public void balanceChanged(Account account) {
+        record(List.of(accountEvent(OutboxEvent.Type.BALANCE_CHANGED, account)));
+    }
+
+    public void accountCreated(Account account) {
+        record(List.of(accountEvent(OutboxEvent.Type.ACCOUNT_CREATED, account)));
+    }
+
+    public void userRegistered(User user) {
+        OutboxEvent event = new OutboxEvent();
+        event.setType(OutboxEvent.Type.USER_REGISTERED);
+        event.setFamilyId(familyIdOf(user));
+        event.setUserId(user.getId());
+        event.setOccurredAt(LocalDateTime.now());
+        record(List.of(event));
+    }
+
+    private void record(List<OutboxEvent> events) {
+        long start = stageMetrics.start();
+        outboxEventRepository.saveAll(events);
+        stageMetrics.stop(StageMetrics.Stage.OUTBOX_WRITE, start);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    outboxDispatcher.wake();
+                }
+            });
+        } else {
+            outboxDispatcher.wake();
+        }
+    }
+
+    private static OutboxEvent transactionCreatedEvent(Transaction transaction) {
+        Account account = transaction.getAccount();
+        OutboxEvent event = new OutboxEvent();
+        event.setType(OutboxEvent.Type.TRANSACTION_CREATED);
+        event.setFamilyId(familyIdOf(account.getUser()));
+        event.setUserId(account.getUser().getId());
+        event.setAccountId(account.getId());
+        event.setTransactionId(transaction.getId());
+        event.setAmount(transaction.getAmount());
+        event.setDescription(transaction.getDescription());
+        event.setOccurredAt(transaction.getCreatedAt());
+        return event;
+    }
+
+    private static OutboxEvent accountEvent(OutboxEvent.Type type, Account account) {
+        OutboxEvent event = new OutboxEvent();
+        event.setType(type);
+        event.setFamilyId(familyIdOf(account.getUser()));
+        event.setUserId(account.getUser().getId());
+        event.setAccountId(account.getId());
+        event.setBalance(account.getBalance());
+        event.setOccurredAt(LocalDateTime.now());
+        return event;
+    }
+
+    private static Long familyIdOf(User user) {
+        return user.getParent() != null ? user.getParent().getId() : user.getId();
+    }
+}
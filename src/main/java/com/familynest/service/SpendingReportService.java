@@ -0,0 +1,274 @@
+package com.familynest.service;
+
+import com.familynest.dto.MonthlySpendingDto;
+import com.familynest.dto.SpendingReportDto;
+import com.familynest.model.Account;
+import com.familynest.model.OutboxEvent;
+import com.familynest.model.Transaction;
+import com.familynest.model.User;
+import com.familynest.repository.AccountRepository;
+import com.familynest.repository.TransactionRepository;
+import com.familynest.repository.UserRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Income and spending per account and month, answered from monthly rollups instead of raw rows.
+ * <p>
+ * An account's rollup is built the first time it is reported on, by a parallel (fork-join) pass over
+ * its history, and then kept current from TRANSACTION_CREATED events in the outbox. Every transaction
+ * of an account is saved, with its event, under the account's lock from {@link AccountLockManager},
+ * so one account's transaction ids rise in the order they become visible. The build runs under the
+ * same lock and notes the highest transaction id in the history it reads; only events for later
+ * transactions are applied, so none is counted twice, even when redelivered. Outbox ids are not used
+ * for this, because events of different accounts can commit out of id order.
+ * <p>
+ * Every report takes the caller's family id and is refused with 403 for an account or user of another family.
+ */
+@Service
+public class SpendingReportService implements DomainEventConsumer {
+
+    private static final int MAX_TOP_DESCRIPTIONS = 50;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountLockManager accountLockManager;
+
+    private final ConcurrentMap<Long, AccountRollup> rollups = new ConcurrentHashMap<>();
+
+    /**
+     * One entry per month with transactions, oldest first. Months are copied out as the stream is
+     * consumed, so a long range is written without being built in memory first.
+     */
+    public Stream<MonthlySpendingDto> getAccountMonths(Long familyId, Long accountId, YearMonth from, YearMonth to) {
+        checkRange(from, to);
+        NavigableMap<YearMonth, MonthTotals> months = rollup(familyAccount(familyId, accountId));
+        return range(months, from, to).entrySet().stream()
+                .map(entry -> entry.getValue().copy().toDto(entry.getKey()));
+    }
+
+    public SpendingReportDto getAccountReport(Long familyId, Long accountId, YearMonth from, YearMonth to, int top) {
+        checkRange(from, to);
+        Account account = familyAccount(familyId, accountId);
+        MonthTotals total = sum(range(rollup(account), from, to).values().stream());
+        return total.toReport(account.getUser().getId(), accountId, from, to, top);
+    }
+
+    // The user's own accounts merged month by month; for a child this is their whole history
+    public Stream<MonthlySpendingDto> getUserMonths(Long familyId, Long userId, YearMonth from, YearMonth to) {
+        checkRange(from, to);
+        List<NavigableMap<YearMonth, MonthTotals>> accounts = userRollups(familyId, userId);
+        TreeSet<YearMonth> months = new TreeSet<>();
+        accounts.forEach(rollup -> months.addAll(range(rollup, from, to).keySet()));
+        return months.stream()
+                .map(month -> sum(accounts.stream().map(rollup -> rollup.get(month))).toDto(month));
+    }
+
+    public SpendingReportDto getUserReport(Long familyId, Long userId, YearMonth from, YearMonth to, int top) {
+        checkRange(from, to);
+        MonthTotals total = sum(userRollups(familyId, userId).stream()
+                .flatMap(rollup -> range(rollup, from, to).values().stream()));
+        return total.toReport(userId, null, from, to, top);
+    }
+
+    @Override
+    public void onEvents(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            if (event.getType() != OutboxEvent.Type.TRANSACTION_CREATED || event.getOccurredAt() == null) {
+                continue;
+            }
+            // Accounts nobody has reported on yet are skipped; they are built from the repository on first read
+            AccountRollup rollup = rollups.get(event.getAccountId());
+            if (rollup != null) {
+                rollup.apply(event);
+            }
+        }
+    }
+
+    private NavigableMap<YearMonth, MonthTotals> rollup(Account account) {
+        AccountRollup rollup = rollups.get(account.getId());
+        if (rollup != null) {
+            return rollup.months;
+        }
+        return accountLockManager.withAccountLock(account.getId(),
+                () -> rollups.computeIfAbsent(account.getId(), id -> build(account))).months;
+    }
+
+    private AccountRollup build(Account account) {
+        List<Transaction> history = transactionRepository.findByAccount(account);
+        long appliedThrough = history.stream().mapToLong(Transaction::getId).max().orElse(0L);
+        // Each fork groups its share of the history into its own maps; the forks are merged pairwise
+        Map<YearMonth, MonthTotals> months = history.parallelStream()
+                .filter(transaction -> transaction.getCreatedAt() != null)
+                .collect(Collectors.groupingBy(transaction -> YearMonth.from(transaction.getCreatedAt()),
+                        TreeMap::new,
+                        Collector.of(MonthTotals::new,
+                                (totals, transaction) -> totals.add(transaction.getAmount(), transaction.getDescription()),
+                                MonthTotals::merge)));
+        return new AccountRollup(new ConcurrentSkipListMap<>(months), appliedThrough);
+    }
+
+    private static final class AccountRollup {
+        private final NavigableMap<YearMonth, MonthTotals> months;
+        // Highest transaction id of the account already counted; guarded by this
+        private long appliedThrough;
+
+        AccountRollup(NavigableMap<YearMonth, MonthTotals> months, long appliedThrough) {
+            this.months = months;
+            this.appliedThrough = appliedThrough;
+        }
+
+        synchronized void apply(OutboxEvent event) {
+            if (event.getTransactionId() <= appliedThrough) {
+                return;
+            }
+            appliedThrough = event.getTransactionId();
+            months.computeIfAbsent(YearMonth.from(event.getOccurredAt()), month -> new MonthTotals())
+                    .add(event.getAmount(), event.getDescription());
+        }
+    }
+
+    private List<NavigableMap<YearMonth, MonthTotals>> userRollups(Long familyId, Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        checkFamily(familyId, user);
+        return accountRepository.findByUser(user).parallelStream()
+                .map(this::rollup)
+                .toList();
+    }
+
+    private Account familyAccount(Long familyId, Long accountId) {
+        Account account = accountService.getAccountById(accountId);
+        checkFamily(familyId, account.getUser());
+        return account;
+    }
+
+    private static void checkFamily(Long familyId, User user) {
+        Long ownFamily = user.getParent() != null ? user.getParent().getId() : user.getId();
+        if (!ownFamily.equals(familyId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not a member of this family");
+        }
+    }
+
+    private static NavigableMap<YearMonth, MonthTotals> range(NavigableMap<YearMonth, MonthTotals> months,
+                                                              YearMonth from, YearMonth to) {
+        if (from != null && to != null) {
+            return months.subMap(from, true, to, true);
+        }
+        if (from != null) {
+            return months.tailMap(from, true);
+        }
+        return to != null ? months.headMap(to, true) : months;
+    }
+
+    private static MonthTotals sum(Stream<MonthTotals> months) {
+        return months.parallel()
+                .filter(month -> month != null)
+                .map(MonthTotals::copy)
+                .reduce(new MonthTotals(), MonthTotals::merge, MonthTotals::merge);
+    }
+
+    private static void checkRange(YearMonth from, YearMonth to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+    }
+
+    /**
+     * Totals for one month. Rollup months are only updated by the outbox dispatcher but may be read
+     * at any time, so every access is synchronized and reports work on copies.
+     */
+    private static final class MonthTotals {
+        private BigDecimal income = BigDecimal.ZERO;
+        private BigDecimal spending = BigDecimal.ZERO;
+        private long count;
+        private final Map<String, DescriptionTotals> descriptions = new HashMap<>();
+
+        synchronized void add(BigDecimal amount, String description) {
+            count++;
+            if (amount.signum() > 0) {
+                income = income.add(amount);
+            } else if (amount.signum() < 0) {
+                spending = spending.subtract(amount);
+                if (description != null) {
+                    descriptions.computeIfAbsent(description, key -> new DescriptionTotals())
+                            .add(amount.negate(), 1);
+                }
+            }
+        }
+
+        // Only ever called on copies and on totals private to one fork
+        MonthTotals merge(MonthTotals other) {
+            income = income.add(other.income);
+            spending = spending.add(other.spending);
+            count += other.count;
+            other.descriptions.forEach((description, totals) -> descriptions
+                    .computeIfAbsent(description, key -> new DescriptionTotals())
+                    .add(totals.spending, totals.count));
+            return this;
+        }
+
+        synchronized MonthTotals copy() {
+            MonthTotals copy = new MonthTotals();
+            copy.merge(this);
+            return copy;
+        }
+
+        MonthlySpendingDto toDto(YearMonth month) {
+            return new MonthlySpendingDto(month, income, spending, income.subtract(spending), count);
+        }
+
+        SpendingReportDto toReport(Long userId, Long accountId, YearMonth from, YearMonth to, int top) {
+            List<SpendingReportDto.DescriptionTotal> topDescriptions = descriptions.entrySet().stream()
+                    .sorted(Comparator.comparing((Map.Entry<String, DescriptionTotals> entry) -> entry.getValue().spending)
+                            .reversed()
+                            .thenComparing(Map.Entry::getKey))
+                    .limit(Math.max(0, Math.min(top, MAX_TOP_DESCRIPTIONS)))
+                    .map(entry -> new SpendingReportDto.DescriptionTotal(
+                            entry.getKey(), entry.getValue().spending, entry.getValue().count))
+                    .toList();
+            return new SpendingReportDto(userId, accountId, from, to, income, spending,
+                    income.subtract(spending), count, topDescriptions);
+        }
+    }
+
+    private static final class DescriptionTotals {
+        private BigDecimal spending = BigDecimal.ZERO;
+        private long count;
+
+        void add(BigDecimal amount, long transactions) {
+            spending = spending.add(amount);
+            count += transactions;
+        }
+    }
+}
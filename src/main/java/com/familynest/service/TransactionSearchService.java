@@ -0,0 +1,304 @@
+package com.familynest.service;
+
+import com.familynest.dto.TransactionDto;
+import com.familynest.dto.TransactionPage;
+import com.familynest.model.Account;
+import com.familynest.model.OutboxEvent;
+import com.familynest.model.Transaction;
+import com.familynest.model.User;
+import com.familynest.repository.AccountRepository;
+import com.familynest.repository.TransactionRepository;
+import com.familynest.repository.UserRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Searches transaction descriptions through an in-memory inverted index, one per family.
+ * <p>
+ * A family's index maps each word to the ascending ids of the transactions whose description
+ * contains it. Query words are matched as prefixes and must all match, and results come newest
+ * (highest id) first. A family is indexed from the repository the first time it is searched and then
+ * kept current from TRANSACTION_CREATED events in the outbox. Adding an id that is already indexed
+ * does nothing, so events that race with the initial build or are redelivered are harmless.
+ */
+@Service
+public class TransactionSearchService implements DomainEventConsumer {
+
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_QUERY_WORDS = 8;
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final ConcurrentMap<Long, FamilyIndex> families = new ConcurrentHashMap<>();
+
+    /**
+     * A page of the signed-in user's family's transactions whose descriptions match every word of the
+     * query. Parents search the whole family; children only their own accounts.
+     */
+    public TransactionPage search(String username, String query, String before, int limit) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        List<String> words = words(query);
+        if (words.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Query must contain at least one word");
+        }
+        if (words.size() > MAX_QUERY_WORDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Query may contain at most " + MAX_QUERY_WORDS + " words");
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        long bound = before == null || before.isBlank() ? Long.MAX_VALUE : TransactionPage.decodeCursor(before).id();
+
+        Set<Long> ownAccounts = user.getRole() == User.Role.PARENT
+                ? null
+                : accountRepository.findByUser(user).stream().map(Account::getId).collect(Collectors.toSet());
+        FamilyIndex index = index(familyIdOf(user));
+
+        // Fetch one extra match to know whether an older page exists
+        List<Transaction> matches = new ArrayList<>();
+        while (matches.size() <= pageSize && bound > 0) {
+            long[] ids = index.search(words, bound, pageSize + 1 - matches.size());
+            if (ids.length == 0) {
+                break;
+            }
+            bound = ids[ids.length - 1];
+            for (Transaction transaction : load(ids)) {
+                if (ownAccounts == null || ownAccounts.contains(transaction.getAccount().getId())) {
+                    matches.add(transaction);
+                }
+            }
+        }
+
+        String nextCursor = null;
+        if (matches.size() > pageSize) {
+            matches = matches.subList(0, pageSize);
+            nextCursor = TransactionPage.encodeCursor(matches.get(pageSize - 1));
+        }
+        return new TransactionPage(matches.stream().map(TransactionDto::fromEntity).toList(), nextCursor);
+    }
+
+    @Override
+    public void onEvents(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            if (event.getType() != OutboxEvent.Type.TRANSACTION_CREATED) {
+                continue;
+            }
+            // Families nobody has searched yet are skipped; they are indexed from the repository on first search
+            FamilyIndex index = families.get(event.getFamilyId());
+            if (index != null) {
+                for (String word : words(event.getDescription())) {
+                    index.add(word, new long[] {event.getTransactionId()});
+                }
+            }
+        }
+    }
+
+    private FamilyIndex index(Long familyId) {
+        // Registered before the build, so events dispatched meanwhile are added as well
+        FamilyIndex index = families.computeIfAbsent(familyId, id -> new FamilyIndex());
+        index.buildOnce(() -> build(familyId, index));
+        return index;
+    }
+
+    private void build(Long familyId, FamilyIndex index) {
+        User parent = userRepository.findById(familyId)
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        Map<String, List<Long>> postings = new HashMap<>();
+        for (Account account : accountRepository.findByUserOrUserParent(parent, parent)) {
+            for (Transaction transaction : transactionRepository.findByAccount(account)) {
+                for (String word : words(transaction.getDescription())) {
+                    postings.computeIfAbsent(word, key -> new ArrayList<>()).add(transaction.getId());
+                }
+            }
+        }
+        postings.forEach((word, ids) -> index.add(word, ids.stream().mapToLong(Long::longValue).sorted().toArray()));
+    }
+
+    // Loads the transactions in one repository call, keeping the order of the ids
+    private List<Transaction> load(long[] ids) {
+        List<Long> boxed = Arrays.stream(ids).boxed().toList();
+        Map<Long, Transaction> byId = transactionRepository.findAllById(boxed).stream()
+                .collect(Collectors.toMap(Transaction::getId, Function.identity()));
+        List<Transaction> result = new ArrayList<>(ids.length);
+        for (Long id : boxed) {
+            Transaction transaction = byId.get(id);
+            if (transaction != null) {
+                result.add(transaction);
+            }
+        }
+        return result;
+    }
+
+    // Lower-cased words of the text, each once, in order of appearance
+    static List<String> words(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        Collection<String> words = new LinkedHashSet<>();
+        for (String word : WORD_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return new ArrayList<>(words);
+    }
+
+    private static Long familyIdOf(User user) {
+        return user.getParent() != null ? user.getParent().getId() : user.getId();
+    }
+
+    private static final class FamilyIndex {
+        private final ConcurrentSkipListMap<String, Postings> words = new ConcurrentSkipListMap<>();
+        // Held for the whole build; a lock rather than a monitor so a waiting search never pins a virtual thread
+        private final ReentrantLock buildLock = new ReentrantLock();
+        private volatile boolean built;
+
+        void buildOnce(Runnable build) {
+            if (built) {
+                return;
+            }
+            buildLock.lock();
+            try {
+                if (!built) {
+                    build.run();
+                    built = true;
+                }
+            } finally {
+                buildLock.unlock();
+            }
+        }
+
+        void add(String word, long[] ids) {
+            words.computeIfAbsent(word, key -> new Postings()).addAll(ids);
+        }
+
+        /**
+         * Up to {@code limit} ids below {@code bound}, descending, matched by every word. Walks the
+         * words in lockstep: each proposes its largest id not above the current candidate until all agree.
+         */
+        long[] search(List<String> queryWords, long bound, int limit) {
+            List<Collection<Postings>> clauses = new ArrayList<>(queryWords.size());
+            for (String word : queryWords) {
+                ConcurrentNavigableMap<String, Postings> matches = words.subMap(word, true, word + Character.MAX_VALUE, true);
+                if (matches.isEmpty()) {
+                    return new long[0];
+                }
+                clauses.add(matches.values());
+            }
+
+            long[] result = new long[Math.min(limit, 64)];
+            int count = 0;
+            long candidate = bound;
+            while (count < limit) {
+                candidate = largestBelow(clauses.get(0), candidate);
+                int agreed = 1;
+                for (int i = 1; candidate > 0 && agreed < clauses.size(); i = (i + 1) % clauses.size()) {
+                    long next = largestBelow(clauses.get(i), candidate + 1);
+                    agreed = next == candidate ? agreed + 1 : 1;
+                    candidate = next;
+                }
+                if (candidate <= 0) {
+                    break;
+                }
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, Math.min(limit, count * 2));
+                }
+                result[count++] = candidate;
+            }
+            return Arrays.copyOf(result, count);
+        }
+
+        // The largest id below the bound in any of the postings, or 0
+        private static long largestBelow(Collection<Postings> clause, long bound) {
+            long best = 0;
+            for (Postings postings : clause) {
+                best = Math.max(best, postings.largestBelow(bound));
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Ascending, distinct transaction ids for one word. New transactions nearly always have the highest
+     * id, so adding one is usually an append.
+     */
+    private static final class Postings {
+        private long[] ids = new long[4];
+        private int size;
+
+        synchronized void addAll(long[] sorted) {
+            if (size == 0 || sorted.length == 0 || sorted[0] > ids[size - 1]) {
+                ensureCapacity(size + sorted.length);
+                long last = size > 0 ? ids[size - 1] : 0;
+                for (long id : sorted) {
+                    if (id != last) {
+                        ids[size++] = id;
+                        last = id;
+                    }
+                }
+                return;
+            }
+            long[] merged = new long[size + sorted.length];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < size || j < sorted.length) {
+                long next = j == sorted.length || (i < size && ids[i] <= sorted[j]) ? ids[i++] : sorted[j++];
+                if (count == 0 || merged[count - 1] != next) {
+                    merged[count++] = next;
+                }
+            }
+            ids = merged;
+            size = count;
+        }
+
+        synchronized long largestBelow(long bound) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ids[mid] < bound) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low > 0 ? ids[low - 1] : 0;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(capacity, ids.length * 2));
+            }
+        }
+    }
+}
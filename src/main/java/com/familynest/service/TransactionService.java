@@ -1,43 +1,186 @@
 
 package com.familynest.service;
 
+import com.familynest.config.StageMetrics;
+import com.familynest.dto.BatchTransactionResponse;
+import com.familynest.dto.TransactionDto;
+import com.familynest.dto.TransactionPage;
+import com.familynest.dto.TransactionRequest;
 import com.familynest.model.Account;
 import com.familynest.model.Transaction;
 import com.familynest.repository.TransactionRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Service
 public class TransactionService {
 
+    private static final int MAX_PAGE_SIZE = 200;
+
     @Autowired
     private TransactionRepository transactionRepository;
 
     @Autowired
     private AccountService accountService;
 
+    @Autowired
+    private AccountLockManager accountLockManager;
+
+    @Autowired
+    private FamilyBalanceService familyBalanceService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private StageMetrics stageMetrics;
+
+    @Value("${app.transactions.max-batch-size:10000}")
+    private int maxBatchSize;
+
     public List<Transaction> getTransactionsByAccountId(Long accountId) {
         Account account = accountService.getAccountById(accountId);
-        return transactionRepository.findByAccountOrderByCreatedAtDesc(account);
+        return stageMetrics.time(StageMetrics.Stage.TRANSACTION_HISTORY,
+                () -> transactionRepository.findByAccountOrderByCreatedAtDesc(account));
+    }
+
+    public TransactionPage getTransactionPage(Long accountId, String before, int limit) {
+        Account account = accountService.getAccountById(accountId);
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        // Fetch one extra row to know whether an older page exists without a count query
+        PageRequest request = PageRequest.of(0, pageSize + 1);
+        List<Transaction> transactions;
+        long start = stageMetrics.start();
+        if (before == null || before.isBlank()) {
+            transactions = transactionRepository.findByAccountOrderByCreatedAtDescIdDesc(account, request);
+        } else {
+            TransactionPage.Cursor cursor = TransactionPage.decodeCursor(before);
+            transactions = transactionRepository.findByAccountBefore(account, cursor.createdAt(), cursor.id(), request);
+        }
+        stageMetrics.stop(StageMetrics.Stage.TRANSACTION_HISTORY, start);
+
+        String nextCursor = null;
+        if (transactions.size() > pageSize) {
+            transactions = transactions.subList(0, pageSize);
+            nextCursor = TransactionPage.encodeCursor(transactions.get(pageSize - 1));
+        }
+        return new TransactionPage(transactions.stream().map(TransactionDto::fromEntity).toList(), nextCursor);
     }
 
     @Transactional
     public Transaction createTransaction(Long accountId, BigDecimal amount, String description) {
-        Account account = accountService.getAccountById(accountId);
-        
+        return accountLockManager.withAccountLock(accountId, () -> applyTransaction(accountId, amount, description));
+    }
+
+    /**
+     * Applies the amount to the account's balance and records the transaction.
+     * The caller must hold the account's lock from {@link AccountLockManager}.
+     */
+    public Transaction applyTransaction(Long accountId, BigDecimal amount, String description) {
         // Update account balance
-        accountService.updateAccountBalance(accountId, amount);
-        
+        Account account = accountService.updateAccountBalance(accountId, amount);
+        familyBalanceService.onBalanceChanged(account);
+
         // Create transaction record
         Transaction transaction = new Transaction();
         transaction.setAmount(amount);
         transaction.setDescription(description);
         transaction.setAccount(account);
-        
-        return transactionRepository.save(transaction);
+
+        long start = stageMetrics.start();
+        Transaction saved = transactionRepository.save(transaction);
+        stageMetrics.stop(StageMetrics.Stage.TRANSACTION_SAVE, start);
+        outboxService.transactionCreated(saved);
+        outboxService.balanceChanged(account);
+        return saved;
+    }
+
+    /**
+     * Creates many transactions in one commit. Rows are grouped per account so each balance is
+     * updated once per batch; invalid rows and rows for unknown accounts are reported by index and
+     * skipped without failing the rest.
+     */
+    @Transactional
+    public BatchTransactionResponse createTransactions(List<TransactionRequest> requests) {
+        if (requests.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "A batch may contain at most " + maxBatchSize + " transactions");
+        }
+
+        List<BatchTransactionResponse.RowError> errors = new ArrayList<>();
+        Map<Long, List<Integer>> rowsByAccount = new TreeMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            String error = validate(requests.get(i));
+            if (error != null) {
+                errors.add(new BatchTransactionResponse.RowError(i, error));
+            } else {
+                rowsByAccount.computeIfAbsent(requests.get(i).getAccountId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+
+        Map<Long, Account> accounts = accountService.getAccountsById(rowsByAccount.keySet());
+        rowsByAccount.entrySet().removeIf(entry -> {
+            if (accounts.containsKey(entry.getKey())) {
+                return false;
+            }
+            entry.getValue().forEach(i -> errors.add(new BatchTransactionResponse.RowError(i, "Account not found")));
+            return true;
+        });
+
+        int created = accountLockManager.withAccountLocks(rowsByAccount.keySet(), () -> {
+            List<Transaction> transactions = new ArrayList<>();
+            for (Map.Entry<Long, List<Integer>> entry : rowsByAccount.entrySet()) {
+                BigDecimal total = BigDecimal.ZERO;
+                for (int i : entry.getValue()) {
+                    total = total.add(requests.get(i).getAmount());
+                }
+                Account account = accountService.updateAccountBalance(entry.getKey(), total);
+                familyBalanceService.onBalanceChanged(account);
+                outboxService.balanceChanged(account);
+
+                for (int i : entry.getValue()) {
+                    TransactionRequest request = requests.get(i);
+                    Transaction transaction = new Transaction();
+                    transaction.setAmount(request.getAmount());
+                    transaction.setDescription(request.getDescription());
+                    transaction.setAccount(account);
+                    transactions.add(transaction);
+                }
+            }
+            outboxService.transactionsCreated(stageMetrics.time(StageMetrics.Stage.TRANSACTION_SAVE,
+                    () -> transactionRepository.saveAll(transactions)));
+            return transactions.size();
+        });
+
+        errors.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+        return new BatchTransactionResponse(created, errors.size(), errors);
+    }
+
+    private static String validate(TransactionRequest request) {
+        if (request == null) {
+            return "Row is empty";
+        }
+        if (request.getAccountId() == null) {
+            return "accountId is required";
+        }
+        if (request.getAmount() == null) {
+            return "amount is required";
+        }
+        if (request.getDescription() == null || request.getDescription().isBlank()) {
+            return "description is required";
+        }
+        return null;
     }
 }
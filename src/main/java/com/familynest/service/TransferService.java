@@ -0,0 +1,96 @@
+package com.familynest.service;
+
+import com.familynest.dto.TransactionDto;
+import com.familynest.dto.TransferDto;
+import com.familynest.dto.TransferRequest;
+import com.familynest.model.Account;
+import com.familynest.model.Transaction;
+import com.familynest.model.User;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+@Service
+public class TransferService {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountLockManager accountLockManager;
+
+    /**
+     * Moves money between a parent account and one of its child accounts, in either direction.
+     * Both accounts are locked together through {@link AccountLockManager#withAccountLocks}, which
+     * acquires them in a fixed order, so opposite transfers between the same pair cannot deadlock.
+     * The debit and the credit are written in the same commit.
+     * <p>
+     * Only the family's parent may move money, so {@code familyId} is the caller's own user id; both
+     * accounts must be in that family and the parent side of the pair must be the caller's, or 403.
+     */
+    @Transactional
+    public TransferDto transfer(Long familyId, TransferRequest request) {
+        if (request.getFromAccountId() == null || request.getToAccountId() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "fromAccountId and toAccountId are required");
+        }
+        if (request.getFromAccountId().equals(request.getToAccountId())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot transfer to the same account");
+        }
+        if (request.getAmount() == null || request.getAmount().signum() <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "amount must be positive");
+        }
+
+        // Both accounts are checked up front so a missing one cannot leave half a transfer behind
+        Map<Long, Account> accounts = accountService.getAccountsById(
+                List.of(request.getFromAccountId(), request.getToAccountId()));
+        Account from = accounts.get(request.getFromAccountId());
+        Account to = accounts.get(request.getToAccountId());
+        if (from == null || to == null) {
+            throw new EntityNotFoundException("Account not found");
+        }
+        Account parentSide = isParentOf(from, to) ? from : to;
+        if (!familyId.equals(familyIdOf(from.getUser())) || !familyId.equals(familyIdOf(to.getUser()))
+                || !familyId.equals(parentSide.getUser().getId())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not the paying parent of these accounts");
+        }
+        if (!isParentOf(from, to) && !isParentOf(to, from)) {
+            throw new RuntimeException("Transfers are only allowed between a parent account and its child accounts");
+        }
+
+        String description = request.getDescription() != null && !request.getDescription().isBlank()
+                ? request.getDescription()
+                : "Transfer";
+        Transaction[] rows = accountLockManager.withAccountLocks(List.of(from.getId(), to.getId()),
+                () -> applyTransfer(from.getId(), to.getId(), request.getAmount(), description));
+        return new TransferDto(TransactionDto.fromEntity(rows[0]), TransactionDto.fromEntity(rows[1]));
+    }
+
+    /**
+     * Writes the debit and credit rows of a transfer and returns them in that order.
+     * The caller must hold both accounts' locks from {@link AccountLockManager}.
+     */
+    public Transaction[] applyTransfer(Long fromAccountId, Long toAccountId, BigDecimal amount, String description) {
+        Transaction debit = transactionService.applyTransaction(fromAccountId, amount.negate(), description);
+        Transaction credit = transactionService.applyTransaction(toAccountId, amount, description);
+        return new Transaction[] {debit, credit};
+    }
+
+    private static Long familyIdOf(User user) {
+        return user.getParent() != null ? user.getParent().getId() : user.getId();
+    }
+
+    private static boolean isParentOf(Account parent, Account child) {
+        return child.getParentAccount() != null && Objects.equals(child.getParentAccount().getId(), parent.getId());
+    }
+}
@@ -0,0 +1,34 @@
+package com.familynest.service;
+
+import com.familynest.config.JwtAuthCache;
+import com.familynest.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.stereotype.Service;
+
+/**
+ * Stores a re-encoded password after a successful login when the stored hash was produced with a
+ * weaker BCrypt strength than the one currently configured.
+ */
+@Service
+public class UserPasswordUpgradeService implements UserDetailsPasswordService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtAuthCache jwtAuthCache;
+
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        userRepository.findByUsername(userDetails.getUsername()).ifPresent(user -> {
+            user.setPassword(newPassword);
+            userRepository.save(user);
+        });
+        jwtAuthCache.evictUser(userDetails.getUsername());
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails)
+                .password(newPassword)
+                .build();
+    }
+}
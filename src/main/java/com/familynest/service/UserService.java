@@ -1,26 +1,37 @@
 
 package com.familynest.service;
 
+import com.familynest.dto.FamilyDto;
 import com.familynest.dto.LoginRequest;
 import com.familynest.dto.LoginResponse;
 import com.familynest.dto.RegisterRequest;
 import com.familynest.dto.UserDto;
+import com.familynest.config.JwtAuthCache;
 import com.familynest.config.JwtUtil;
+import com.familynest.config.StageMetrics;
+import com.familynest.config.WorkerPool;
 import com.familynest.model.Account;
 import com.familynest.model.User;
 import com.familynest.repository.AccountRepository;
 import com.familynest.repository.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Service
 public class UserService {
@@ -40,7 +51,49 @@ public class UserService {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private JwtAuthCache jwtAuthCache;
+
+    @Autowired
+    private StageMetrics stageMetrics;
+
+    @Autowired
+    private FamilyBalanceService familyBalanceService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    @Qualifier("loginPool")
+    private WorkerPool<ThreadPoolExecutor> loginPool;
+
+    /**
+     * Runs {@link #login} on the login executor so BCrypt never runs on a request thread.
+     * Fails fast with 429 when the executor's queue is full.
+     */
+    public CompletableFuture<LoginResponse> loginAsync(LoginRequest loginRequest) {
+        try {
+            return CompletableFuture.supplyAsync(() -> login(loginRequest), loginPool.executor());
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many logins in progress, please retry shortly");
+        }
+    }
+
     public LoginResponse login(LoginRequest loginRequest) {
+        long start = stageMetrics.start();
+        try {
+            LoginResponse response = authenticate(loginRequest);
+            stageMetrics.increment(StageMetrics.Event.LOGIN_SUCCESS);
+            return response;
+        } catch (AuthenticationException e) {
+            stageMetrics.increment(StageMetrics.Event.LOGIN_FAILURE);
+            throw e;
+        } finally {
+            stageMetrics.stop(StageMetrics.Stage.LOGIN, start);
+        }
+    }
+
+    private LoginResponse authenticate(LoginRequest loginRequest) {
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         loginRequest.getUsername(),
@@ -84,6 +137,7 @@ public class UserService {
         }
 
         User savedUser = userRepository.save(user);
+        jwtAuthCache.evictUser(savedUser.getUsername());
 
         // Create default account for new user
         Account account = new Account();
@@ -100,14 +154,31 @@ public class UserService {
                     .ifPresent(account::setParentAccount);
         }
         
-        accountRepository.save(account);
+        Account savedAccount = accountRepository.save(account);
+        familyBalanceService.onBalanceChanged(savedAccount);
+        outboxService.userRegistered(savedUser);
+        outboxService.accountCreated(savedAccount);
 
         return UserDto.fromEntity(savedUser);
     }
 
-    public UserDto getUserById(Long id) {
-        return userRepository.findById(id)
-                .map(UserDto::fromEntity)
+    // Profiles are only served within the caller's family; anyone else is refused with 403
+    public FamilyDto getFamily(Long familyId, Long userId) {
+        User user = familyMember(familyId, userId);
+        return FamilyDto.fromEntity(user, userRepository.findByParent(user));
+    }
+
+    public UserDto getUserById(Long familyId, Long id) {
+        return UserDto.fromEntity(familyMember(familyId, id));
+    }
+
+    private User familyMember(Long familyId, Long userId) {
+        User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        Long ownFamily = user.getParent() != null ? user.getParent().getId() : user.getId();
+        if (!ownFamily.equals(familyId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not a member of this family");
+        }
+        return user;
     }
 }
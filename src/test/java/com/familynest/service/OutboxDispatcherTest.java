@@ -0,0 +1,97 @@
+package com.familynest.service;
+
+import com.familynest.model.OutboxEvent;
+import com.familynest.repository.OutboxEventRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * An event whose id was assigned before another's but that commits after the other was delivered
+ * must still reach every consumer before it is deleted.
+ */
+@SpringBootTest(properties = {"app.journal.enabled=false", "app.outbox.poll-interval-ms=3600000"})
+class OutboxDispatcherTest {
+
+    // Not a real family, so no other consumer acts on the test's events
+    private static final Long FAMILY_ID = Long.MAX_VALUE;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private RecordingConsumer recordingConsumer;
+
+    @Test
+    @Timeout(30)
+    void lateCommittedEventIsDeliveredBeforeItIsDeleted() throws Exception {
+        drain();
+
+        // Saving straight through the repository does not wake the dispatcher, so nothing is delivered
+        // until drain(). The first event's id is taken and then withdrawn, as if its commit were still running.
+        OutboxEvent late = outboxEventRepository.save(event());
+        Long lateId = late.getId();
+        outboxEventRepository.deleteById(lateId);
+        OutboxEvent early = outboxEventRepository.save(event());
+        assertThat(early.getId()).isGreaterThan(lateId);
+        drain();
+        assertThat(recordingConsumer.received).containsExactly(early.getId());
+
+        late.setId(lateId);
+        outboxEventRepository.save(late);
+        drain();
+        assertThat(recordingConsumer.received).containsExactly(early.getId(), lateId);
+    }
+
+    private void drain() throws InterruptedException {
+        outboxDispatcher.poll();
+        await(() -> outboxEventRepository.count() == 0);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        while (!condition.getAsBoolean()) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static OutboxEvent event() {
+        OutboxEvent event = new OutboxEvent();
+        event.setType(OutboxEvent.Type.USER_REGISTERED);
+        event.setFamilyId(FAMILY_ID);
+        event.setOccurredAt(LocalDateTime.now());
+        return event;
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        RecordingConsumer recordingConsumer() {
+            return new RecordingConsumer();
+        }
+    }
+
+    static class RecordingConsumer implements DomainEventConsumer {
+        private final Queue<Long> received = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public void onEvents(List<OutboxEvent> events) {
+            events.stream()
+                    .filter(event -> FAMILY_ID.equals(event.getFamilyId()))
+                    .forEach(event -> received.add(event.getId()));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.familynest.service;
+
+import com.familynest.model.Account;
+import com.familynest.model.User;
+import com.familynest.repository.TransactionRepository;
+import com.familynest.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many threads creating transactions at once must not lose balance updates or transaction rows,
+ * whether they all write to one account or each to its own.
+ */
+@SpringBootTest(properties = "app.journal.enabled=false")
+class TransactionServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int TRANSACTIONS_PER_THREAD = 1000;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User parent;
+
+    @BeforeEach
+    void setUp() {
+        parent = userRepository.findByUsername("parent").orElseThrow();
+    }
+
+    @Test
+    @Timeout(60)
+    void sharedAccountKeepsEveryUpdate() throws Exception {
+        Account account = accountService.createAccount(parent.getId(), "Shared", true);
+
+        BigDecimal expected = hammer(thread -> account.getId());
+
+        assertThat(accountService.getAccountById(account.getId()).getBalance()).isEqualByComparingTo(expected);
+        assertThat(transactionRepository.findByAccount(account)).hasSize(THREADS * TRANSACTIONS_PER_THREAD);
+    }
+
+    @Test
+    @Timeout(60)
+    void disjointAccountsKeepEveryUpdate() throws Exception {
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            accounts.add(accountService.createAccount(parent.getId(), "Own " + i, true));
+        }
+
+        BigDecimal expected = hammer(thread -> accounts.get(thread).getId());
+
+        BigDecimal total = BigDecimal.ZERO;
+        int transactions = 0;
+        for (Account account : accounts) {
+            BigDecimal balance = accountService.getAccountById(account.getId()).getBalance();
+            // Every thread applies the same amounts, so every account ends at the same balance
+            assertThat(balance).isEqualByComparingTo(expected.divide(BigDecimal.valueOf(THREADS)));
+            total = total.add(balance);
+            transactions += transactionRepository.findByAccount(account).size();
+        }
+        assertThat(total).isEqualByComparingTo(expected);
+        assertThat(transactions).isEqualTo(THREADS * TRANSACTIONS_PER_THREAD);
+    }
+
+    // Runs every thread's transactions at once and returns the sum of all amounts applied
+    private BigDecimal hammer(IntFunction<Long> accountOfThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                Long accountId = accountOfThread.apply(t);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < TRANSACTIONS_PER_THREAD; i++) {
+                        transactionService.createTransaction(accountId, amount(i), "Concurrent " + i);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        BigDecimal perThread = BigDecimal.ZERO;
+        for (int i = 0; i < TRANSACTIONS_PER_THREAD; i++) {
+            perThread = perThread.add(amount(i));
+        }
+        return perThread.multiply(BigDecimal.valueOf(THREADS));
+    }
+
+    // Deposits and withdrawals of different sizes, so a lost update cannot cancel out by accident
+    private static BigDecimal amount(int i) {
+        return BigDecimal.valueOf(i % 3 == 0 ? -(i % 7 + 1) : i % 11 + 1, 2);
+    }
+}
@@ -0,0 +1,118 @@
+package com.familynest.service;
+
+import com.familynest.dto.AccountDto;
+import com.familynest.dto.RegisterRequest;
+import com.familynest.dto.TransferRequest;
+import com.familynest.model.Account;
+import com.familynest.model.User;
+import com.familynest.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Transfers in both directions between the same parent and child accounts, from many threads at
+ * once. Opposite transfers lock the same pair of accounts, so a lock-ordering bug shows up as a
+ * deadlock and the test times out.
+ */
+@SpringBootTest(properties = "app.journal.enabled=false")
+class TransferServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 500;
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000.00");
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Test
+    @Timeout(60)
+    void oppositeTransfersConserveMoneyWithoutDeadlock() throws Exception {
+        // A family of its own, so the child's account is linked to this parent's account
+        String name = "transfer-test-" + System.nanoTime();
+        Long parentId = register(name, User.Role.PARENT, null);
+        Long childId = register(name + "-child", User.Role.CHILD, parentId);
+        Account parentAccount = accountService.getAccountById(accountService.getAccountsByUserId(parentId, parentId).stream()
+                .filter(AccountDto::isParentAccount).findFirst().orElseThrow().getId());
+        Account childAccount = accountService.getAccountById(accountService.getAccountsByUserId(parentId, childId).get(0).getId());
+        transactionService.createTransaction(parentAccount.getId(), OPENING_BALANCE, "Opening balance");
+        transactionService.createTransaction(childAccount.getId(), OPENING_BALANCE, "Opening balance");
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                // Half the threads pay pocket money, the other half pay it back
+                boolean toChild = t % 2 == 0;
+                Long from = toChild ? parentAccount.getId() : childAccount.getId();
+                Long to = toChild ? childAccount.getId() : parentAccount.getId();
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        transferService.transfer(parentId, new TransferRequest(from, to, amount(i), "Transfer " + i));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        BigDecimal parentBalance = accountService.getAccountById(parentAccount.getId()).getBalance();
+        BigDecimal childBalance = accountService.getAccountById(childAccount.getId()).getBalance();
+        assertThat(parentBalance.add(childBalance)).isEqualByComparingTo(OPENING_BALANCE.add(OPENING_BALANCE));
+        // Both directions move the same amounts equally often, so each account ends where it started
+        assertThat(parentBalance).isEqualByComparingTo(OPENING_BALANCE);
+        assertThat(childBalance).isEqualByComparingTo(OPENING_BALANCE);
+
+        int transfers = THREADS * TRANSFERS_PER_THREAD;
+        int rows = transactionRepository.findByAccount(parentAccount).size()
+                + transactionRepository.findByAccount(childAccount).size();
+        // Two rows per transfer, plus the two opening deposits
+        assertThat(rows).isEqualTo(2 * transfers + 2);
+    }
+
+    private Long register(String username, User.Role role, Long parentId) {
+        RegisterRequest request = new RegisterRequest();
+        request.setUsername(username);
+        request.setEmail(username + "@example.com");
+        request.setPassword("password");
+        request.setRole(role);
+        request.setParentId(parentId);
+        return userService.register(request).getId();
+    }
+
+    private static BigDecimal amount(int i) {
+        return BigDecimal.valueOf(i % 13 + 1, 1);
+    }
+}